@@ -0,0 +1,48 @@
+package com.bsdev.crud_webapp.dto;
+
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Сериализация ответов REST API в JSON тем же ObjectMapper, что строит Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TaskResponseJsonBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private TaskResponse response;
+    private TaskPageResponse page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<TaskResponse> items = IntStream.range(0, size)
+                .mapToObj(i -> new TaskResponse(i, "Задача №" + i, "Описание задачи №" + i, i % 100,
+                        TaskStatus.values()[i % TaskStatus.values().length], 0L))
+                .toList();
+        response = items.get(0);
+        page = new TaskPageResponse(items, (long) size);
+    }
+
+    @Benchmark
+    public byte[] serializeTask() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
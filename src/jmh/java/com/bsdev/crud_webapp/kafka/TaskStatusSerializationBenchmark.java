@@ -0,0 +1,89 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация события смены статуса: JsonSerializer/JsonDeserializer (прежний формат и запасной вариант)
+ * против {@link TaskStatusChangedSerializer}/{@link TaskStatusChangedDeserializer} в двоичном формате.
+ * Размер сообщения и заголовков в байтах выводится один раз при старте.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TaskStatusSerializationBenchmark {
+
+    private static final String TOPIC = "tasks_status_changed";
+
+    private final TaskStatusChangedDto dto = new TaskStatusChangedDto(123_456L, TaskStatus.IN_PROGRESS);
+
+    private JsonSerializer<TaskStatusChangedDto> jsonSerializer;
+    private JsonDeserializer<TaskStatusChangedDto> jsonDeserializer;
+    private byte[] jsonPayload;
+
+    private TaskStatusChangedSerializer binarySerializer;
+    private TaskStatusChangedDeserializer binaryDeserializer;
+    private byte[] binaryPayload;
+
+    @Setup
+    public void setUp() {
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>(TaskStatusChangedDto.class, false);
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        jsonPayload = jsonSerializer.serialize(TOPIC, jsonHeaders, dto);
+
+        binarySerializer = new TaskStatusChangedSerializer(Set.of(TOPIC));
+        binaryDeserializer = new TaskStatusChangedDeserializer();
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        binaryPayload = binarySerializer.serialize(TOPIC, binaryHeaders, dto);
+
+        System.out.println("json payload: " + jsonPayload.length + " bytes, headers: " + headersSize(jsonHeaders)
+                + " bytes");
+        System.out.println("binary payload: " + binaryPayload.length + " bytes, headers: "
+                + headersSize(binaryHeaders) + " bytes");
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), dto);
+    }
+
+    @Benchmark
+    public TaskStatusChangedDto jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, new RecordHeaders(), jsonPayload);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, new RecordHeaders(), dto);
+    }
+
+    @Benchmark
+    public TaskStatusChangedDto binaryDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, new RecordHeaders(), binaryPayload);
+    }
+
+    /**
+     * Прочитать JSON-событие, оставшееся в топике после переключения: формат определяется по первому байту.
+     */
+    @Benchmark
+    public TaskStatusChangedDto jsonFallbackDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, new RecordHeaders(), jsonPayload);
+    }
+
+    private static int headersSize(RecordHeaders headers) {
+        int size = 0;
+        for (Header header : headers) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,47 @@
+package com.bsdev.crud_webapp.service;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Построение писем в NotificationService без обращения к SMTP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NotificationMessageBenchmark {
+
+    @Param({"10", "100"})
+    private int digestSize;
+
+    private NotificationService notificationService;
+    private List<TaskStatusChangedDto> digest;
+
+    @Setup
+    public void setUp() {
+        notificationService = new NotificationService(null, Runnable::run, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(notificationService, "from", "from@bench.local");
+        ReflectionTestUtils.setField(notificationService, "defaultRecipient", "to@bench.local");
+        digest = IntStream.range(0, digestSize)
+                .mapToObj(i -> new TaskStatusChangedDto(i, TaskStatus.DONE))
+                .toList();
+    }
+
+    @Benchmark
+    public SimpleMailMessage statusChangedMessage() {
+        return notificationService.buildStatusChangedMessage(123_456L, TaskStatus.DONE.name());
+    }
+
+    @Benchmark
+    public SimpleMailMessage digestMessage() {
+        return notificationService.buildDigestMessage("to@bench.local", digest);
+    }
+}
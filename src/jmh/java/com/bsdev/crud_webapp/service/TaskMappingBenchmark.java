@@ -0,0 +1,51 @@
+package com.bsdev.crud_webapp.service;
+
+import com.bsdev.crud_webapp.dto.TaskResponse;
+import com.bsdev.crud_webapp.entity.Task;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Стоимость маппинга сущности в DTO ({@link TaskService#toResponse(Task)}) — одиночного и для страницы задач.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TaskMappingBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private Task task;
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        tasks = IntStream.range(0, size)
+                .mapToObj(i -> Task.builder()
+                        .id(i)
+                        .title("Задача №" + i)
+                        .description("Описание задачи №" + i)
+                        .userId(i % 100)
+                        .status(TaskStatus.values()[i % TaskStatus.values().length])
+                        .build())
+                .toList();
+        task = tasks.get(0);
+    }
+
+    @Benchmark
+    public TaskResponse toResponse() {
+        return TaskService.toResponse(task);
+    }
+
+    @Benchmark
+    public List<TaskResponse> toResponseList() {
+        return tasks.stream()
+                .map(TaskService::toResponse)
+                .toList();
+    }
+}
@@ -2,8 +2,10 @@ package com.bsdev.crud_webapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CrudWebappApplication {
 
 	public static void main(String[] args) {
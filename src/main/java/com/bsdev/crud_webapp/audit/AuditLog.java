@@ -0,0 +1,22 @@
+package com.bsdev.crud_webapp.audit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аудит вызова: краткая сводка аргументов и результата уходит в логгер {@code audit} фоновым потоком,
+ * см. {@link AuditLogAspect}. В отличие от аспектов log-starter, ответ целиком не форматируется.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AuditLog {
+
+    /**
+     * Имя эндпоинта в записи аудита и ключ частоты выборки audit.sample-rates.<имя>.
+     */
+    String value();
+}
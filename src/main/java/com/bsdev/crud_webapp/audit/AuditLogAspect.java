@@ -0,0 +1,92 @@
+package com.bsdev.crud_webapp.audit;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аудит методов с {@link AuditLog}.
+ * <p>
+ * Успешные вызовы попадают в аудит с долей audit.sample-rates.&lt;эндпоинт&gt; (по умолчанию audit.sample-rate),
+ * решение принимается до вызова, и невыбранный вызов не строит сводок. Вызовы, завершившиеся исключением,
+ * записываются всегда. В потоке запроса строятся только {@link PayloadSummary}, всё остальное делает
+ * {@link AuditLogWriter}.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class AuditLogAspect {
+
+    private final AuditLogWriter writer;
+    private final Environment environment;
+    private final Map<String, Double> sampleRates = new ConcurrentHashMap<>();
+
+    @Value("${audit.enabled}")
+    private boolean enabled;
+
+    @Value("${audit.sample-rate}")
+    private double defaultSampleRate;
+
+    @Value("${audit.max-ids}")
+    private int maxIds;
+
+    @Around("@annotation(auditLog)")
+    public Object audit(ProceedingJoinPoint joinPoint, AuditLog auditLog) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        String endpoint = auditLog.value();
+        boolean sampled = isSampled(endpoint);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            writer.submit(new AuditRecord(Instant.now(), endpoint, elapsedMicros(start), summarizeArgs(joinPoint),
+                    null, e.getClass().getSimpleName() + ": " + e.getMessage()));
+            throw e;
+        }
+        if (sampled) {
+            writer.submit(new AuditRecord(Instant.now(), endpoint, elapsedMicros(start), summarizeArgs(joinPoint),
+                    PayloadSummary.of(result, maxIds), null));
+        }
+        return result;
+    }
+
+    private boolean isSampled(String endpoint) {
+        double rate = sampleRates.computeIfAbsent(endpoint, name ->
+                environment.getProperty("audit.sample-rates." + name, Double.class, defaultSampleRate));
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private Map<String, PayloadSummary> summarizeArgs(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        Map<String, PayloadSummary> summaries = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof ServletRequest || args[i] instanceof ServletResponse) {
+                continue;
+            }
+            summaries.put(names != null ? names[i] : "arg" + i, PayloadSummary.of(args[i], maxIds));
+        }
+        return summaries;
+    }
+
+    private static long elapsedMicros(long start) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+}
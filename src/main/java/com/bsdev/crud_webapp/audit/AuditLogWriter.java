@@ -0,0 +1,108 @@
+package com.bsdev.crud_webapp.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая запись аудита в логгер {@code audit}.
+ * <p>
+ * Потоки запросов только кладут готовую запись в ограниченный буфер и никогда не ждут: если писатель не успевает
+ * и буфер заполнен, запись отбрасывается и учитывается в audit.records{result=dropped}. Форматирование строк
+ * и вывод в appender выполняет один поток audit-writer пачками. При остановке приложения буфер дописывается.
+ */
+@Slf4j
+public class AuditLogWriter implements SmartLifecycle {
+
+    static final int BATCH_SIZE = 256;
+    private static final long POLL_TIMEOUT_MS = 200;
+    private static final Logger AUDIT = LoggerFactory.getLogger("audit");
+
+    private final BlockingQueue<AuditRecord> buffer;
+    private final Counter written;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditLogWriter(int bufferCapacity, MeterRegistry meterRegistry) {
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.written = meterRegistry.counter("audit.records", "result", "written");
+        this.dropped = meterRegistry.counter("audit.records", "result", "dropped");
+        meterRegistry.gauge("audit.buffer.size", buffer, BlockingQueue::size);
+    }
+
+    /**
+     * Не блокирует: при заполненном буфере запись отбрасывается.
+     *
+     * @return false, если запись отброшена
+     */
+    public boolean submit(AuditRecord record) {
+        if (buffer.offer(record)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::drainLoop, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        List<AuditRecord> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !buffer.isEmpty()) {
+            try {
+                AuditRecord first = buffer.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка записи аудита, пропущено записей: {}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditRecord> batch) {
+        if (AUDIT.isInfoEnabled()) {
+            batch.forEach(record -> AUDIT.info(record.format()));
+        }
+        written.increment(batch.size());
+    }
+}
@@ -0,0 +1,33 @@
+package com.bsdev.crud_webapp.audit;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Запись аудита. Строится в потоке запроса из готовых сводок, в строку форматируется фоновым писателем.
+ *
+ * @param error класс и сообщение исключения или null для успешного вызова
+ */
+public record AuditRecord(
+        Instant timestamp,
+        String endpoint,
+        long durationMicros,
+        Map<String, PayloadSummary> args,
+        PayloadSummary result,
+        String error
+) {
+    public String format() {
+        StringBuilder line = new StringBuilder(128)
+                .append("ts=").append(timestamp)
+                .append(" endpoint=").append(endpoint)
+                .append(" outcome=").append(error == null ? "ok" : "error")
+                .append(" durationUs=").append(durationMicros)
+                .append(" args=").append(args);
+        if (error == null) {
+            line.append(" result=").append(result);
+        } else {
+            line.append(" error=").append(error);
+        }
+        return line.toString();
+    }
+}
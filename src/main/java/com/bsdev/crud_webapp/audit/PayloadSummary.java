@@ -0,0 +1,96 @@
+package com.bsdev.crud_webapp.audit;
+
+import com.bsdev.crud_webapp.dto.TaskPageResponse;
+import com.bsdev.crud_webapp.dto.TaskResponse;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Сводка аргумента или результата для аудита: тип, размер коллекции и первые id вместо всего содержимого.
+ * Стоимость построения не зависит от размера ответа — перебирается не больше maxIds элементов.
+ *
+ * @param size  размер коллекции или -1
+ * @param value короткое значение для скаляров (id, limit, статус) или дополнительные сведения
+ */
+public record PayloadSummary(String type, int size, List<Long> ids, boolean truncated, String value) {
+
+    static final int MAX_VALUE_LENGTH = 64;
+
+    public static PayloadSummary of(Object payload, int maxIds) {
+        if (payload == null) {
+            return new PayloadSummary("null", -1, List.of(), false, null);
+        }
+        if (payload instanceof ResponseEntity<?> entity) {
+            PayloadSummary body = of(entity.getBody(), maxIds);
+            return new PayloadSummary(body.type(), body.size(), body.ids(), body.truncated(),
+                    "status=" + entity.getStatusCodeValue());
+        }
+        if (payload instanceof TaskPageResponse page) {
+            PayloadSummary items = of(page.items(), maxIds);
+            return new PayloadSummary("TaskPageResponse", items.size(), items.ids(), items.truncated(),
+                    "next=" + page.next());
+        }
+        if (payload instanceof Collection<?> collection) {
+            List<Long> ids = new ArrayList<>(Math.min(collection.size(), maxIds));
+            for (Object element : collection) {
+                if (ids.size() == maxIds) {
+                    break;
+                }
+                Long id = idOf(element);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+            return new PayloadSummary("List", collection.size(), ids, collection.size() > maxIds, null);
+        }
+        if (payload instanceof TaskResponse task) {
+            return new PayloadSummary("TaskResponse", -1, List.of(task.id()), false, null);
+        }
+        if (payload instanceof Number || payload instanceof Enum<?> || payload instanceof Boolean
+                || payload instanceof CharSequence) {
+            String value = payload.toString();
+            boolean truncated = value.length() > MAX_VALUE_LENGTH;
+            return new PayloadSummary(payload.getClass().getSimpleName(), -1, List.of(), truncated,
+                    truncated ? value.substring(0, MAX_VALUE_LENGTH) : value);
+        }
+        return new PayloadSummary(payload.getClass().getSimpleName(), -1, List.of(), false, null);
+    }
+
+    private static Long idOf(Object element) {
+        if (element instanceof TaskResponse task) {
+            return task.id();
+        }
+        if (element instanceof Long id) {
+            return id;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(type);
+        if (size < 0 && ids.isEmpty()) {
+            if (value == null) {
+                return type;
+            }
+            return text.append('(').append(value).append(truncated ? "…)" : ")").toString();
+        }
+        text.append('[');
+        if (size >= 0) {
+            text.append("size=").append(size).append(", ");
+        }
+        if (!ids.isEmpty()) {
+            text.append("ids=").append(ids).append(truncated ? "…, " : ", ");
+        }
+        if (value != null) {
+            text.append(value).append(", ");
+        }
+        if (text.charAt(text.length() - 1) == ' ') {
+            text.setLength(text.length() - 2);
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.bsdev.crud_webapp.cache;
+
+import com.bsdev.crud_webapp.dto.TaskResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Локальный read-through кэш задач по id. Отсутствующие задачи тоже кэшируются (пустой Optional)
+ * с отдельным, более коротким TTL, чтобы повторные запросы несуществующих id не доходили до базы.
+ * Изменения применяются после коммита транзакции, чтобы в кэш не попали откатившиеся данные.
+ * <p>
+ * Загрузка из базы выполняется в потоке вызывающего, но вне блокировки внутри Caffeine: в кэш кладётся
+ * незавершённый future, поэтому вытеснение того же ключа не ждёт, пока загрузчик получит соединение из пула,
+ * а вытесненная во время загрузки запись в кэш уже не вернётся.
+ * <p>
+ * С ненулевым invalidationWindow кэш помнит, какие id вытеснялись за это время ({@link #isRecentlyInvalidated}):
+ * такие задачи загружаются с основной базы, а не с реплики, которая могла ещё не догнать изменение.
+ * <p>
+ * Статистика публикуется в Micrometer: cache.* с тегом cache=tasks (размер, попадания, промахи, вытеснения)
+ * и tasks.cache.invalidation.lag — задержка вытеснений по сообщениям других узлов.
+ */
+public class TaskCache {
+
+    private final AsyncCache<Long, Optional<TaskResponse>> cache;
+    private final Cache<Long, Boolean> recentlyInvalidated;
+    private final Timer remoteInvalidationLag;
+
+    public TaskCache(long maxSize, Duration ttl, Duration negativeTtl, MeterRegistry meterRegistry) {
+        this(maxSize, ttl, negativeTtl, Duration.ZERO, meterRegistry);
+    }
+
+    public TaskCache(long maxSize, Duration ttl, Duration negativeTtl, Duration invalidationWindow,
+                     MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PositiveNegativeExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .buildAsync();
+        this.recentlyInvalidated = invalidationWindow.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 1000))
+                .expireAfterWrite(invalidationWindow)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "tasks");
+        this.remoteInvalidationLag = Timer.builder("tasks.cache.invalidation.lag")
+                .description("Время от публикации вытеснения другим узлом до его обработки")
+                .register(meterRegistry);
+    }
+
+    public Optional<TaskResponse> get(long id, Function<Long, Optional<TaskResponse>> loader) {
+        CompletableFuture<Optional<TaskResponse>> loading = new CompletableFuture<>();
+        CompletableFuture<Optional<TaskResponse>> future = cache.get(id, (key, executor) -> loading);
+        if (future == loading) {
+            try {
+                loading.complete(loader.apply(id));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void putAfterCommit(TaskResponse task) {
+        afterCommit(() -> cache.put(task.id(), CompletableFuture.completedFuture(Optional.of(task))));
+    }
+
+    public void evictAfterCommit(long id) {
+        cache.synchronous().invalidate(id);
+        afterCommit(() -> {
+            cache.synchronous().invalidate(id);
+            markInvalidated(id);
+        });
+    }
+
+    public void evictAllAfterCommit(Collection<Long> ids) {
+        cache.synchronous().invalidateAll(ids);
+        afterCommit(() -> {
+            cache.synchronous().invalidateAll(ids);
+            ids.forEach(this::markInvalidated);
+        });
+    }
+
+    /**
+     * Задача вытеснялась (здесь или по сообщению другого узла) в пределах invalidationWindow.
+     */
+    public boolean isRecentlyInvalidated(long id) {
+        return recentlyInvalidated != null && recentlyInvalidated.getIfPresent(id) != null;
+    }
+
+    /**
+     * Вытеснение по сообщению другого узла. lagMs — время от публикации до обработки,
+     * то есть верхняя граница устаревания кэша на этом узле.
+     */
+    public void evictRemote(long id, long lagMs) {
+        cache.synchronous().invalidate(id);
+        markInvalidated(id);
+        remoteInvalidationLag.record(Math.max(lagMs, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void markInvalidated(long id) {
+        if (recentlyInvalidated != null) {
+            recentlyInvalidated.put(id, Boolean.TRUE);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record PositiveNegativeExpiry(long ttlNanos, long negativeTtlNanos)
+            implements Expiry<Long, Optional<TaskResponse>> {
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<TaskResponse> task, long currentTime) {
+            return task.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<TaskResponse> task, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, task, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<TaskResponse> task, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.bsdev.crud_webapp.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Рассылает другим экземплярам приложения сообщения об изменении задачи, чтобы они вытеснили её
+ * из своего {@link TaskCache}. Сообщение компактное: ключ — id задачи, значение — id узла-отправителя,
+ * время публикации берётся из timestamp записи Kafka. Отправка происходит только после коммита.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskCacheInvalidationPublisher {
+
+    @Qualifier("cacheInvalidationKafkaTemplate")
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${spring.kafka.listener.topic.task-cache-invalidation}")
+    private String topic;
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public void publishAfterCommit(long taskId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(taskId);
+                }
+            });
+        } else {
+            publish(taskId);
+        }
+    }
+
+    private void publish(long taskId) {
+        kafkaTemplate.send(topic, String.valueOf(taskId), nodeId);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bsdev.crud_webapp.config;
+
+import com.bsdev.crud_webapp.datasource.PrimaryPin;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.time.Duration;
+
+/**
+ * Асинхронный режим обработки запросов к задачам (tasks.async.enabled=true), см. {@link DbCallHandlerAdapter}.
+ * Пул стоит держать не больше пула соединений Hikari: лишним потокам всё равно пришлось бы ждать соединение.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tasks.async.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AsyncWebConfig {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tasks.async.pool-size}")
+    private int poolSize;
+
+    @Value("${tasks.async.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${tasks.async.timeout}")
+    private Duration timeout;
+
+    /**
+     * Пул для вызовов контроллеров, которые ходят в БД. Переполнение не обрабатывается в вызывающем потоке:
+     * запрос сразу получает 503, иначе поток Tomcat снова оказался бы занят ожиданием БД.
+     * Закрепление запроса за основной базой ({@link PrimaryPin}) переносится в поток пула.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor dbExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("db-");
+        executor.setTaskDecorator(PrimaryPin::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public WebMvcRegistrations dbCallWebMvcRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new DbCallHandlerAdapter(dbExecutor(), timeout.toMillis(),
+                        meterRegistry.counter("tasks.async.rejected"));
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.bsdev.crud_webapp.config;
+
+import com.bsdev.crud_webapp.audit.AuditLogWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AuditConfig {
+
+    @Value("${audit.buffer-capacity}")
+    private int bufferCapacity;
+
+    @Bean
+    public AuditLogWriter auditLogWriter(MeterRegistry meterRegistry) {
+        return new AuditLogWriter(bufferCapacity, meterRegistry);
+    }
+}
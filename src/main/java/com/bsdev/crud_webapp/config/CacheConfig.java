@@ -0,0 +1,38 @@
+package com.bsdev.crud_webapp.config;
+
+import com.bsdev.crud_webapp.cache.TaskCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${tasks.cache.max-size}")
+    private long maxSize;
+
+    @Value("${tasks.cache.ttl}")
+    private Duration ttl;
+
+    @Value("${tasks.cache.negative-ttl}")
+    private Duration negativeTtl;
+
+    @Value("${spring.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${spring.datasource.replica.read-your-writes-window:0s}")
+    private Duration readYourWritesWindow;
+
+    /**
+     * С репликой кэш помнит недавно вытесненные id: их загрузка идёт с основной базы, иначе отстающая реплика
+     * положила бы в кэш старую версию до конца TTL.
+     */
+    @Bean
+    public TaskCache taskCache(MeterRegistry meterRegistry) {
+        return new TaskCache(maxSize, ttl, negativeTtl, replicaUrl.isBlank() ? Duration.ZERO : readYourWritesWindow,
+                meterRegistry);
+    }
+}
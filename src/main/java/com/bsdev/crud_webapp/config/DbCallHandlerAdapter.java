@@ -0,0 +1,100 @@
+package com.bsdev.crud_webapp.config;
+
+import com.bsdev.crud_webapp.controller.DbCall;
+import com.bsdev.crud_webapp.exception.TaskServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import java.util.Set;
+
+/**
+ * Выполняет обработчики с {@link DbCall} в пуле dbExecutor вместо потока Tomcat.
+ * <p>
+ * Аргументы (тело, параметры, заголовки) разбираются в потоке Tomcat, в пул уходит только вызов метода
+ * контроллера. Результат возвращается через {@link DeferredResult}, поэтому ответ формируется обычным образом:
+ * статусы, ETag и исключения с {@code @ResponseStatus} работают как в синхронном режиме.
+ * <ul>
+ *     <li>пул и очередь заняты — сразу 503 ({@link TaskServiceOverloadedException}), запрос в очередь не встаёт;</li>
+ *     <li>чтение не уложилось в timeout — 503 (AsyncRequestTimeoutException), а ещё не начатый вызов уже
+ *     не выполняется;</li>
+ *     <li>изменяющий вызов (не GET/HEAD) ограничен timeout только в очереди: простоял дольше — 503 без выполнения,
+ *     а начатый вызов ответ ждёт до конца. Иначе клиент получил бы 503 на уже закоммиченное создание
+ *     и повторил бы его.</li>
+ * </ul>
+ */
+@RequiredArgsConstructor
+public class DbCallHandlerAdapter extends RequestMappingHandlerAdapter {
+
+    private final ThreadPoolTaskExecutor dbExecutor;
+    private final long timeoutMs;
+    private final Counter rejected;
+
+    private static final Set<RequestMethod> READ_METHODS = Set.of(RequestMethod.GET, RequestMethod.HEAD);
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        return handlerMethod.hasMethodAnnotation(DbCall.class)
+                ? new DbCallHandlerMethod(handlerMethod)
+                : super.createInvocableHandlerMethod(handlerMethod);
+    }
+
+    private class DbCallHandlerMethod extends ServletInvocableHandlerMethod {
+
+        private final boolean write;
+
+        DbCallHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+            this.write = isWrite(handlerMethod);
+        }
+
+        @Override
+        protected Object doInvoke(Object... args) {
+            // 0 — без таймаута запроса: для записи срок проверяется только перед началом вызова
+            DeferredResult<Object> result = new DeferredResult<>(write ? 0L : timeoutMs);
+            long submittedAt = System.nanoTime();
+            try {
+                dbExecutor.execute(() -> {
+                    if (result.isSetOrExpired()) {
+                        return;
+                    }
+                    if (write && System.nanoTime() - submittedAt > timeoutMs * 1_000_000) {
+                        result.setErrorResult(new AsyncRequestTimeoutException());
+                        return;
+                    }
+                    try {
+                        result.setResult(super.doInvoke(args));
+                    } catch (Throwable e) {
+                        result.setErrorResult(e);
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                rejected.increment();
+                throw new TaskServiceOverloadedException(e);
+            }
+            return result;
+        }
+    }
+
+    private static boolean isWrite(HandlerMethod handlerMethod) {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), RequestMapping.class);
+        if (mapping == null || mapping.method().length == 0) {
+            return true;
+        }
+        for (RequestMethod method : mapping.method()) {
+            if (!READ_METHODS.contains(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
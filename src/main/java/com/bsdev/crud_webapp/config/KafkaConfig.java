@@ -1,28 +1,43 @@
 package com.bsdev.crud_webapp.config;
 
 import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.kafka.TaskStatusChangedDeserializer;
+import com.bsdev.crud_webapp.kafka.TaskStatusChangedSerializer;
+import com.bsdev.crud_webapp.kafka.TaskStatusRetryRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConfig {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -32,13 +47,69 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${spring.kafka.listener.topic.task-cache-invalidation}")
+    private String cacheInvalidationTopic;
+
+    @Value("${spring.kafka.listener.topic.task-status-changed-partitions}")
+    private int taskStatusPartitions;
+
+    @Value("${spring.kafka.listener.concurrency}")
+    private int listenerConcurrency;
+
+    @Value("${spring.kafka.listener.topic.binary-topics}")
+    private List<String> binaryTopics;
+
+    @Value("${notification.retry.delays}")
+    private List<Duration> retryDelays;
+
+    /**
+     * События ключуются id задачи, поэтому все события одной задачи попадают в одну партицию
+     * и обрабатываются по порядку, а партиции разбираются параллельно (listener.concurrency).
+     */
+    @Bean
+    public NewTopic taskStatusTopic() {
+        return TopicBuilder.name(taskStatusTopic)
+                .partitions(taskStatusPartitions)
+                .build();
+    }
+
+    /**
+     * Уровни повторов и DLT для событий смены статуса, с тем же числом партиций, что и основной топик.
+     */
+    @Bean
+    public KafkaAdmin.NewTopics taskStatusRetryTopics() {
+        TaskStatusRetryRouter router = taskStatusRetryRouter();
+        List<String> topics = new ArrayList<>(router.retryTopics());
+        topics.add(router.dltTopic());
+        return new KafkaAdmin.NewTopics(topics.stream()
+                .map(topic -> TopicBuilder.name(topic).partitions(taskStatusPartitions).build())
+                .toArray(NewTopic[]::new));
+    }
+
+    @Bean
+    public TaskStatusRetryRouter taskStatusRetryRouter() {
+        return new TaskStatusRetryRouter(taskStatusTopic, retryDelays, kafkaTemplate(), rawKafkaTemplate());
+    }
+
+    /**
+     * Метрики клиентов Kafka (в том числе records-lag-max консьюмера) публикуются в Micrometer
+     * через MicrometerProducerListener/MicrometerConsumerListener. Время отправки KafkaTemplate
+     * (spring.kafka.template) и обработки пачки слушателем (spring.kafka.listener) spring-kafka пишет сам.
+     * <p>
+     * В топики из spring.kafka.listener.topic.binary-topics события пишутся в 10-байтовом двоичном формате,
+     * в остальные — JSON, см. {@link TaskStatusChangedSerializer}.
+     */
     @Bean
     public ProducerFactory<String, TaskStatusChangedDto> producerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(props);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        DefaultKafkaProducerFactory<String, TaskStatusChangedDto> factory = new DefaultKafkaProducerFactory<>(props,
+                new StringSerializer(), new TaskStatusChangedSerializer(new HashSet<>(binaryTopics)));
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -54,25 +125,130 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
-                new ErrorHandlingDeserializer<>(
-                        new JsonDeserializer<>(TaskStatusChangedDto.class, false)
-                ));
+        DefaultKafkaConsumerFactory<String, TaskStatusChangedDto> factory =
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                        new ErrorHandlingDeserializer<>(new TaskStatusChangedDeserializer()));
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
+    /**
+     * Неудачные записи TaskStatusConsumer сам передаёт на уровни повторов ({@link TaskStatusRetryRouter}), и поток
+     * основного топика не ждёт. До обработчика ошибок доходит только сбой этой передачи — BatchListenerFailedException
+     * с записью: смещения до неё коммитятся, она без пауз ещё раз передаётся на повтор, остаток пачки читается снова.
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, TaskStatusChangedDto> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, TaskStatusChangedDto> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(listenerConcurrency);
         factory.setBatchListener(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
-        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 3)));
+        factory.setCommonErrorHandler(retryRoutingErrorHandler());
+        return factory;
+    }
+
+    /**
+     * Обработчик ошибок без задержек: поток слушателя не засыпает, а запись, на которой упала пачка, сразу
+     * передаётся на следующий уровень повторов. Если не удалась и эта передача, запись читается снова.
+     */
+    private DefaultErrorHandler retryRoutingErrorHandler() {
+        TaskStatusRetryRouter router = taskStatusRetryRouter();
+        return new DefaultErrorHandler(router::route, new FixedBackOff(0L, 0L));
+    }
+
+    /**
+     * Контейнеры уровней повторов создаёт {@link com.bsdev.crud_webapp.kafka.TaskStatusRetryConsumer}: по одному
+     * на уровень, чтобы задержка одного уровня не держала остальные.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TaskStatusChangedDto> retryListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, TaskStatusChangedDto> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.setCommonErrorHandler(retryRoutingErrorHandler());
+        return factory;
+    }
+
+    /**
+     * Записи без десериализации: нечитаемые события в DLT и перенос из DLT обратно в основной топик.
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> rawProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(props,
+                new StringSerializer(), new ByteArraySerializer());
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> rawKafkaTemplate() {
+        return new KafkaTemplate<>(rawProducerFactory());
+    }
+
+    @Bean
+    public ConsumerFactory<String, byte[]> rawConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        DefaultKafkaConsumerFactory<String, byte[]> factory =
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public ProducerFactory<String, String> cacheInvalidationProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(props);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> cacheInvalidationKafkaTemplate() {
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(cacheInvalidationProducerFactory());
+        template.setDefaultTopic(cacheInvalidationTopic);
+        return template;
+    }
+
+    /**
+     * Каждый экземпляр приложения читает инвалидации в своей группе, чтобы получать все сообщения.
+     * Смещения не коммитятся: после рестарта локальный кэш пуст, поэтому чтение начинается с конца топика.
+     */
+    @Bean
+    public ConsumerFactory<String, String> cacheInvalidationConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-cache-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        DefaultKafkaConsumerFactory<String, String> factory =
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer());
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> cacheInvalidationListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(cacheInvalidationConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         return factory;
     }
 }
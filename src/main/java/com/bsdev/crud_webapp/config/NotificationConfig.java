@@ -0,0 +1,34 @@
+package com.bsdev.crud_webapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class NotificationConfig {
+
+    @Value("${notification.concurrency}")
+    private int concurrency;
+
+    @Value("${notification.queue-capacity}")
+    private int queueCapacity;
+
+    /**
+     * Ограниченный пул для отправки писем. При переполнении очереди пачка отправляется
+     * в вызывающем потоке (consumer Kafka), что естественным образом притормаживает чтение топика.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,81 @@
+package com.bsdev.crud_webapp.config;
+
+import com.bsdev.crud_webapp.datasource.ReadWriteRoutingDataSource;
+import com.bsdev.crud_webapp.datasource.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Реплика для чтения (spring.datasource.replica.url не пуст), см. {@link ReadWriteRoutingDataSource}.
+ * Основной DataSource приложения — маршрутизатор за {@link LazyConnectionDataSourceProxy}: JPA, JdbcTemplate
+ * и Flyway работают через него, а Flyway, запись и запросы вне readOnly-транзакций попадают в основную базу.
+ * Пулы — отдельные бины, поэтому метрики hikaricp_* идут с тегом pool=primary и pool=replica.
+ * Без url конфигурация не включается, и Spring Boot создаёт единственный DataSource как раньше.
+ */
+@Configuration
+@ConditionalOnExpression("!'${spring.datasource.replica.url:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Value("${spring.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${spring.datasource.replica.username}")
+    private String replicaUsername;
+
+    @Value("${spring.datasource.replica.password}")
+    private String replicaPassword;
+
+    @Value("${spring.datasource.replica.read-your-writes-window}")
+    private Duration readYourWritesWindow;
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Пул реплики открывает соединения только для чтения: запрос на запись, попавший сюда по ошибке, упадёт,
+     * а не разойдётся с основной базой.
+     */
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter() {
+        return new ReadYourWritesFilter(readYourWritesWindow);
+    }
+}
@@ -0,0 +1,17 @@
+package com.bsdev.crud_webapp.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Обработчик, который ходит в БД. В асинхронном режиме (tasks.async.enabled) он выполняется
+ * в ограниченном пуле dbExecutor, а поток Tomcat освобождается сразу после разбора запроса.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DbCall {
+}
@@ -1,17 +1,28 @@
 package com.bsdev.crud_webapp.controller;
 
+import com.bsdev.crud_webapp.audit.AuditLog;
+import com.bsdev.crud_webapp.dto.TaskPageResponse;
+import com.bsdev.crud_webapp.dto.TaskPatchRequest;
 import com.bsdev.crud_webapp.dto.TaskRequest;
 import com.bsdev.crud_webapp.dto.TaskResponse;
+import com.bsdev.crud_webapp.dto.TaskStatsResponse;
+import com.bsdev.crud_webapp.dto.TaskStatusTransitionRequest;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.service.TaskExportService;
 import com.bsdev.crud_webapp.service.TaskService;
+import com.bsdev.crud_webapp.service.TaskStatsService;
 import lombok.RequiredArgsConstructor;
 
 
-import org.spring.bsdev.starter.log_starter.aspect.annotation.AfterReturningLog;
 import org.spring.bsdev.starter.log_starter.aspect.annotation.AfterThrowingLog;
-import org.spring.bsdev.starter.log_starter.aspect.annotation.AroundLog;
 import org.spring.bsdev.starter.log_starter.aspect.annotation.BeforeLog;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 
@@ -20,42 +31,160 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TaskController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final TaskService taskService;
+    private final TaskExportService taskExportService;
+    private final TaskStatsService taskStatsService;
 
     @PostMapping
+    @DbCall
     @ResponseStatus(HttpStatus.CREATED)
-    @AroundLog
-    @AfterReturningLog
+    @AuditLog("create-task")
     public TaskResponse createTask(@RequestBody TaskRequest taskRequest) {
         return taskService.createTask(taskRequest);
     }
 
+    @PostMapping("/batch")
+    @DbCall
+    @ResponseStatus(HttpStatus.CREATED)
+    @AuditLog("create-tasks")
+    public List<Long> createTasks(@RequestBody List<TaskRequest> taskRequests) {
+        return taskService.createTasks(taskRequests);
+    }
+
+    /**
+     * Отдаёт сильный ETag с версией задачи. Если он совпал с If-None-Match, Spring отвечает 304 без тела.
+     */
     @GetMapping("/{id}")
-    @AfterReturningLog
-    @AfterThrowingLog
-    public TaskResponse getTask(@PathVariable long id) {
-        return taskService.findTaskByIdOrThrow(id);
+    @DbCall
+    @AuditLog("get-task")
+    public ResponseEntity<TaskResponse> getTask(@PathVariable long id) {
+        TaskResponse task = taskService.findTaskByIdOrThrow(id);
+        return ResponseEntity.ok()
+                .eTag(eTag(task.version()))
+                .body(task);
     }
 
+    /**
+     * С заголовком If-Match задача обновляется, только если её версия совпадает с ETag, иначе 412.
+     * Новый ETag возвращается в ответе.
+     */
     @PutMapping("/{id}")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DbCall
     @BeforeLog
     @AfterThrowingLog
-    public void updateTask(@PathVariable long id, @RequestBody TaskRequest taskRequest) {
-        taskService.updateTask(id, taskRequest);
+    public ResponseEntity<Void> updateTask(@PathVariable long id,
+                                           @RequestBody TaskRequest taskRequest,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long version = taskService.updateTask(id, taskRequest, expectedVersion(ifMatch));
+        return ResponseEntity.noContent()
+                .eTag(eTag(version))
+                .build();
+    }
+
+    /**
+     * Меняет только переданные (не null) поля одним UPDATE. If-Match работает так же, как в PUT.
+     */
+    @PatchMapping("/{id}")
+    @DbCall
+    @BeforeLog
+    @AfterThrowingLog
+    public ResponseEntity<Void> patchTask(@PathVariable long id,
+                                          @RequestBody TaskPatchRequest patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long version = taskService.patchTask(id, patch, expectedVersion(ifMatch));
+        return ResponseEntity.noContent()
+                .eTag(eTag(version))
+                .build();
     }
 
     @DeleteMapping("/{id}")
+    @DbCall
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @BeforeLog
     @AfterThrowingLog
-    public void deleteTask(@PathVariable long id) {
-        taskService.deleteTask(id);
+    public void deleteTask(@PathVariable long id,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        taskService.deleteTask(id, expectedVersion(ifMatch));
+    }
+
+    @DeleteMapping(params = "ids")
+    @DbCall
+    @AuditLog("delete-tasks")
+    public List<Long> deleteTasks(@RequestParam List<Long> ids) {
+        return taskService.deleteTasks(ids);
+    }
+
+    /**
+     * Переводит задачи в статус одним UPDATE; событие в Kafka уходит только по задачам, статус которых изменился.
+     *
+     * @return id изменённых задач
+     */
+    @PostMapping("/status")
+    @DbCall
+    @AuditLog("transition-status")
+    public List<Long> transitionStatus(@RequestBody TaskStatusTransitionRequest request) {
+        return taskService.transitionStatus(request.ids(), request.status());
     }
 
     @GetMapping
-    @AfterReturningLog
-    public List<TaskResponse> getAllTasks() {
-        return taskService.findAllTasks();
+    @DbCall
+    @AuditLog("list-tasks")
+    public TaskPageResponse getAllTasks(@RequestParam(defaultValue = "0") long after,
+                                        @RequestParam(defaultValue = "100") int limit,
+                                        @RequestParam(required = false) Long userId,
+                                        @RequestParam(required = false) TaskStatus status) {
+        return taskService.findTasksPage(after, limit, userId, status);
+    }
+
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public void exportTasks(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        taskExportService.exportTasks(response.getOutputStream());
+    }
+
+    /**
+     * Полнотекстовый поиск: результаты упорядочены по релевантности, limit ≤ 100.
+     */
+    @GetMapping("/search")
+    @DbCall
+    @AuditLog("search-tasks")
+    public List<TaskResponse> searchTasks(@RequestParam String q,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        return taskService.searchTasks(q, limit);
+    }
+
+    /**
+     * Число задач по статусам: всего, с userId — ещё и у этого пользователя.
+     */
+    @GetMapping("/stats")
+    @DbCall
+    public TaskStatsResponse getTaskStats(@RequestParam(required = false) Long userId) {
+        return taskStatsService.getStats(userId);
+    }
+
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Версия из If-Match: null, если заголовка нет или он равен "*".
+     * Слабый или нечисловой ETag не может совпасть ни с одной версией, поэтому превращается в -1 и даёт 412.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
     }
 }
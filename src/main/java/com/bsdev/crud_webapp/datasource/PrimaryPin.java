@@ -0,0 +1,60 @@
+package com.bsdev.crud_webapp.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Закрепление текущего потока за основной базой (read-your-writes): пока поток закреплён,
+ * транзакции {@code @Transactional(readOnly = true)} читают не с реплики, а с основной базы.
+ */
+public final class PrimaryPin {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryPin() {
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * @return предыдущее состояние для {@link #restore}
+     */
+    public static boolean pin() {
+        boolean previous = isPinned();
+        PINNED.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void restore(boolean previous) {
+        if (!previous) {
+            PINNED.remove();
+        }
+    }
+
+    public static <T> T call(Supplier<T> action) {
+        boolean previous = pin();
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Переносит закрепление в поток пула: задача, поставленная из закреплённого потока, выполняется закреплённой.
+     */
+    public static Runnable propagate(Runnable task) {
+        if (!isPinned()) {
+            return task;
+        }
+        return () -> {
+            boolean previous = pin();
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+}
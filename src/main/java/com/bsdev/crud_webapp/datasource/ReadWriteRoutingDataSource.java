@@ -0,0 +1,35 @@
+package com.bsdev.crud_webapp.datasource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Соединения транзакций {@code @Transactional(readOnly = true)} берутся из реплики, все остальные — из основной базы.
+ * Поток, закреплённый через {@link PrimaryPin}, и в readOnly-транзакциях читает с основной базы.
+ * <p>
+ * Источник нужно оборачивать в {@link LazyConnectionDataSourceProxy}: менеджер транзакций запрашивает соединение
+ * в начале транзакции, когда признак readOnly ещё не выставлен в {@link TransactionSynchronizationManager},
+ * а прокси откладывает выбор до первого запроса к базе.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.<Object, Object>of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PrimaryPin.isPinned()
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+}
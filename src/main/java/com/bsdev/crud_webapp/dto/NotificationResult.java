@@ -0,0 +1,7 @@
+package com.bsdev.crud_webapp.dto;
+
+public record NotificationResult(
+        long taskId,
+        boolean sent,
+        String error
+) { }
@@ -0,0 +1,8 @@
+package com.bsdev.crud_webapp.dto;
+
+import java.util.List;
+
+public record TaskPageResponse(
+        List<TaskResponse> items,
+        Long next
+) { }
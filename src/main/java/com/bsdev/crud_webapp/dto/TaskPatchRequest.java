@@ -0,0 +1,17 @@
+package com.bsdev.crud_webapp.dto;
+
+import com.bsdev.crud_webapp.entity.TaskStatus;
+
+/**
+ * Частичное обновление задачи: null означает «не менять поле».
+ */
+public record TaskPatchRequest(
+        String title,
+        String description,
+        Long userId,
+        TaskStatus status
+) {
+    public boolean isEmpty() {
+        return title == null && description == null && userId == null && status == null;
+    }
+}
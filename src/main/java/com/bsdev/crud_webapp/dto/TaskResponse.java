@@ -7,5 +7,6 @@ public record TaskResponse(
         String title,
         String description,
         long userId,
-        TaskStatus status
+        TaskStatus status,
+        long version
 ) { }
@@ -0,0 +1,10 @@
+package com.bsdev.crud_webapp.dto;
+
+import com.bsdev.crud_webapp.entity.TaskStatus;
+
+import java.util.Map;
+
+public record TaskStatsResponse(
+        Map<TaskStatus, Long> total,
+        Map<Long, Map<TaskStatus, Long>> byUser
+) { }
@@ -0,0 +1,19 @@
+package com.bsdev.crud_webapp.dto;
+
+import com.bsdev.crud_webapp.entity.TaskStatus;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Массовый перевод задач в статус. Без ids или status тело не разбирается, и запрос получает 400.
+ */
+public record TaskStatusTransitionRequest(
+        List<Long> ids,
+        TaskStatus status
+) {
+    public TaskStatusTransitionRequest {
+        Objects.requireNonNull(ids, "Не передан список ids");
+        Objects.requireNonNull(status, "Не передан статус");
+    }
+}
@@ -11,8 +11,11 @@ import javax.persistence.*;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Task {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_id_seq")
+    @SequenceGenerator(name = "tasks_id_seq", sequenceName = "tasks_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "id")
     private long id;
 
@@ -28,4 +31,12 @@ public class Task {
     @Enumerated(EnumType.STRING)
     @Column(name="status", nullable=false)
     private TaskStatus status = TaskStatus.NEW;
+
+    /**
+     * Версия строки для оптимистической блокировки, увеличивается при каждом изменении.
+     * Она же служит ETag задачи в REST API.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
 }
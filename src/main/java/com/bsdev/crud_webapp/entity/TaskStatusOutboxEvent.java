@@ -0,0 +1,37 @@
+package com.bsdev.crud_webapp.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "task_status_outbox")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskStatusOutboxEvent {
+    /**
+     * id берётся из последовательности по одному, а не пулами: изменения одной задачи сериализуются блокировкой
+     * её строки, поэтому у более позднего события id больше, и relay отправляет события задачи по порядку.
+     * С пулом id узел с «младшим» пулом выдал бы меньший id более позднему изменению.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_status_outbox_id_seq")
+    @SequenceGenerator(name = "task_status_outbox_id_seq", sequenceName = "task_status_outbox_id_seq",
+            allocationSize = 1)
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "task_id", nullable = false)
+    private long taskId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private TaskStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
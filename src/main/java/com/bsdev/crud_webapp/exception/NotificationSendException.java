@@ -0,0 +1,11 @@
+package com.bsdev.crud_webapp.exception;
+
+public class NotificationSendException extends RuntimeException {
+    public NotificationSendException(long failed, int total) {
+        super("Не удалось отправить " + failed + " из " + total + " уведомлений о смене статуса.");
+    }
+
+    public NotificationSendException(long taskId, String error) {
+        super("Не удалось отправить уведомление о смене статуса задачи " + taskId + ": " + error);
+    }
+}
@@ -0,0 +1,11 @@
+package com.bsdev.crud_webapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class TaskConcurrentModificationException extends RuntimeException {
+    public TaskConcurrentModificationException(Long id, Throwable cause) {
+        super("Задача с id: " + id + " была изменена параллельным запросом.", cause);
+    }
+}
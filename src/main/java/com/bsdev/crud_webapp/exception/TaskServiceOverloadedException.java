@@ -0,0 +1,11 @@
+package com.bsdev.crud_webapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TaskServiceOverloadedException extends RuntimeException {
+    public TaskServiceOverloadedException(Throwable cause) {
+        super("Пул обращений к БД переполнен, повторите запрос позже.", cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.bsdev.crud_webapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class TaskVersionMismatchException extends RuntimeException {
+    public TaskVersionMismatchException(Long id, long expectedVersion) {
+        super("Задача с id: " + id + " изменена: ожидалась версия " + expectedVersion + ".");
+    }
+}
@@ -0,0 +1,35 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.cache.TaskCache;
+import com.bsdev.crud_webapp.cache.TaskCacheInvalidationPublisher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class TaskCacheInvalidationConsumer {
+    private final TaskCache taskCache;
+    private final TaskCacheInvalidationPublisher publisher;
+
+    @KafkaListener(
+            topics = "${spring.kafka.listener.topic.task-cache-invalidation}",
+            containerFactory = "cacheInvalidationListenerContainerFactory",
+            autoStartup = "${spring.kafka.listener.auto-startup:true}"
+    )
+    public void listen(List<ConsumerRecord<String, String>> records) {
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, String> record : records) {
+            if (publisher.getNodeId().equals(record.value())) {
+                continue;
+            }
+            taskCache.evictRemote(Long.parseLong(record.key()), now - record.timestamp());
+        }
+        log.debug("Обработана пачка инвалидаций кэша: size={}", records.size());
+    }
+}
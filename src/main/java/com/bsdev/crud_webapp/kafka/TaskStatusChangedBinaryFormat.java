@@ -0,0 +1,58 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Двоичное представление {@link TaskStatusChangedDto}: 10 байт фиксированной длины.
+ * <pre>
+ * 0      версия формата (1)
+ * 1..8   taskId, long big-endian
+ * 9      порядковый номер TaskStatus
+ * </pre>
+ * Статус кодируется порядковым номером, поэтому новые значения TaskStatus добавляются только в конец.
+ * Любое другое изменение раскладки — новая версия; первый байт JSON ('{') с версией не совпадает.
+ */
+public final class TaskStatusChangedBinaryFormat {
+
+    public static final byte VERSION = 1;
+    public static final int SIZE = 1 + Long.BYTES + 1;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private TaskStatusChangedBinaryFormat() {
+    }
+
+    public static byte[] write(TaskStatusChangedDto dto) {
+        return ByteBuffer.allocate(SIZE)
+                .put(VERSION)
+                .putLong(dto.taskId())
+                .put((byte) dto.status().ordinal())
+                .array();
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == VERSION;
+    }
+
+    public static TaskStatusChangedDto read(byte[] data) {
+        if (data.length != SIZE) {
+            throw new SerializationException("Неверная длина события смены статуса: " + data.length
+                    + " байт, ожидалось " + SIZE);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new SerializationException("Неизвестная версия формата события смены статуса: " + version);
+        }
+        long taskId = buffer.getLong();
+        int ordinal = buffer.get();
+        if (ordinal < 0 || ordinal >= STATUSES.length) {
+            throw new SerializationException("Неизвестный статус задачи в событии: " + ordinal);
+        }
+        return new TaskStatusChangedDto(taskId, STATUSES[ordinal]);
+    }
+}
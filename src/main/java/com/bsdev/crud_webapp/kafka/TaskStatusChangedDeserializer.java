@@ -0,0 +1,41 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Читает события в обоих форматах независимо от настроек топика: формат определяется по первому байту,
+ * поэтому в топике во время перехода могут лежать вперемешку JSON и двоичные события.
+ */
+public class TaskStatusChangedDeserializer implements Deserializer<TaskStatusChangedDto> {
+
+    private final JsonDeserializer<TaskStatusChangedDto> jsonDeserializer =
+            new JsonDeserializer<>(TaskStatusChangedDto.class, false);
+
+    @Override
+    public TaskStatusChangedDto deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return TaskStatusChangedBinaryFormat.isBinary(data)
+                ? TaskStatusChangedBinaryFormat.read(data)
+                : jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public TaskStatusChangedDto deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return TaskStatusChangedBinaryFormat.isBinary(data)
+                ? TaskStatusChangedBinaryFormat.read(data)
+                : jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пишет события в топики из binaryTopics и их уровни повторов и DLT ({@code <topic>-retry-N},
+ * {@code <topic>-dlt}) в {@link TaskStatusChangedBinaryFormat}, в остальные — JSON, как раньше.
+ * JSON оставлен для перехода: топик переключается на двоичный формат, когда все его
+ * потребители читают оба формата ({@link TaskStatusChangedDeserializer}).
+ */
+public class TaskStatusChangedSerializer implements Serializer<TaskStatusChangedDto> {
+
+    private final Set<String> binaryTopics;
+    private final Map<String, Boolean> binaryByTopic = new ConcurrentHashMap<>();
+    private final JsonSerializer<TaskStatusChangedDto> jsonSerializer = new JsonSerializer<>();
+
+    public TaskStatusChangedSerializer(Set<String> binaryTopics) {
+        this.binaryTopics = Set.copyOf(binaryTopics);
+    }
+
+    @Override
+    public byte[] serialize(String topic, TaskStatusChangedDto data) {
+        if (data == null) {
+            return null;
+        }
+        return isBinary(topic)
+                ? TaskStatusChangedBinaryFormat.write(data)
+                : jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, TaskStatusChangedDto data) {
+        if (data == null) {
+            return null;
+        }
+        return isBinary(topic)
+                ? TaskStatusChangedBinaryFormat.write(data)
+                : jsonSerializer.serialize(topic, headers, data);
+    }
+
+    private boolean isBinary(String topic) {
+        return binaryByTopic.computeIfAbsent(topic, name -> binaryTopics.stream()
+                .anyMatch(binary -> name.equals(binary) || name.startsWith(binary + "-retry-")
+                        || name.equals(binary + "-dlt")));
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -1,33 +1,159 @@
 package com.bsdev.crud_webapp.kafka;
 
+import com.bsdev.crud_webapp.dto.NotificationResult;
 import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.exception.NotificationSendException;
+import com.bsdev.crud_webapp.service.NotificationDigestService;
 import com.bsdev.crud_webapp.service.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Уведомления о смене статуса задач.
+ * <p>
+ * Неотправленные письма и нечитаемые записи не задерживают пачку: они публикуются на следующий уровень повторов
+ * ({@link TaskStatusRetryRouter}), и пачка подтверждается целиком. Если не удалась сама публикация, выбрасывается
+ * {@link BatchListenerFailedException} с индексом записи: DefaultErrorHandler коммитит смещения до неё и повторно
+ * читает остаток. Записи остатка, письма по которым уже ушли, запоминаются и при повторном чтении не отправляются.
+ * В режиме сводок неотправленные события так же передаёт на повтор {@link NotificationDigestService}.
+ */
 @Slf4j
 @RequiredArgsConstructor
 @Component
 public class TaskStatusConsumer {
+
+    /**
+     * Предел запомненных отправленных записей. После ребаланса повторное чтение может достаться другому
+     * консьюмеру, и запомненное здесь уже не понадобится; при переполнении набор очищается.
+     */
+    static final int MAX_SENT_AHEAD = 10_000;
+
     private final NotificationService notificationService;
+    private final NotificationDigestService notificationDigestService;
+    private final TaskStatusRetryRouter retryRouter;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<RecordPosition> sentAhead = ConcurrentHashMap.newKeySet();
+
+    @Value("${notification.digest.enabled}")
+    private boolean digestEnabled;
 
     @KafkaListener(
             topics = "${spring.kafka.listener.topic.task-status-changed}",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "${spring.kafka.listener.auto-startup:true}"
     )
-    public void listen(List<TaskStatusChangedDto> dtos, Acknowledgment ack) {
-        log.info("Получена пачка обновлений статусов задач: size={}", dtos.size());
+    public void listen(List<ConsumerRecord<String, TaskStatusChangedDto>> records, Acknowledgment ack) {
+        log.info("Получена пачка обновлений статусов задач: size={}", records.size());
+        meterRegistry.summary("tasks.status.consumer.batch.size").record(records.size());
 
-        for (TaskStatusChangedDto dto : dtos) {
-            notificationService.sendStatusChangedEmail(dto.taskId(), dto.status().name());
-            log.debug("Уведомление отправлено для taskId={}", dto.taskId());
+        if (digestEnabled) {
+            if (notificationDigestService.deferIfRetrying(ack)) {
+                log.info("Сводка ждёт повтора, пачка возвращена в Kafka");
+                return;
+            }
+            List<ConsumerRecord<String, TaskStatusChangedDto>> readable = new ArrayList<>(records.size());
+            for (int i = 0; i < records.size(); i++) {
+                if (records.get(i).value() == null) {
+                    route(records, i, unreadable(records.get(i)), List.of(), List.of());
+                } else {
+                    readable.add(records.get(i));
+                }
+            }
+            notificationDigestService.accept(readable, ack);
+            return;
         }
+
+        process(records);
         ack.acknowledge();
         log.info("Пачка сообщений подтверждена");
     }
+
+    /**
+     * Отправляет письма по записям пачки; неудачные записи уходят на следующий уровень повторов.
+     *
+     * @throws BatchListenerFailedException если запись не удалось опубликовать на следующий уровень
+     */
+    void process(List<ConsumerRecord<String, TaskStatusChangedDto>> records) {
+        List<Integer> indexes = new ArrayList<>(records.size());
+        List<TaskStatusChangedDto> dtos = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, TaskStatusChangedDto> record = records.get(i);
+            if (record.value() == null) {
+                continue;
+            }
+            if (sentAhead.remove(RecordPosition.of(record))) {
+                log.debug("Уведомление для taskId={} уже отправлено при прошлой попытке", record.value().taskId());
+                continue;
+            }
+            indexes.add(i);
+            dtos.add(record.value());
+        }
+
+        List<NotificationResult> results = dtos.isEmpty() ? List.of() : notificationService.sendStatusChangedEmails(dtos);
+        NotificationResult[] byIndex = new NotificationResult[records.size()];
+        for (int i = 0; i < results.size(); i++) {
+            byIndex[indexes.get(i)] = results.get(i);
+        }
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, TaskStatusChangedDto> record = records.get(i);
+            NotificationResult result = byIndex[i];
+            if (record.value() == null) {
+                route(records, i, unreadable(record), indexes, results);
+            } else if (result != null && result.sent()) {
+                log.debug("Уведомление отправлено для taskId={}", result.taskId());
+            } else if (result != null) {
+                log.warn("Уведомление не отправлено для taskId={} (попытка {}): {}", result.taskId(),
+                        TaskStatusRetryRouter.attempts(record) + 1, result.error());
+                route(records, i, new NotificationSendException(result.taskId(), result.error()), indexes, results);
+            }
+        }
+    }
+
+    private void route(List<ConsumerRecord<String, TaskStatusChangedDto>> records, int index, Exception cause,
+                       List<Integer> indexes, List<NotificationResult> results) {
+        try {
+            retryRouter.route(records.get(index), cause);
+        } catch (RuntimeException e) {
+            rememberSentAfter(index, records, indexes, results);
+            throw new BatchListenerFailedException("Не удалось передать событие на повтор", e, index);
+        }
+    }
+
+    private static Exception unreadable(ConsumerRecord<?, ?> record) {
+        return new SerializationException("Не удалось прочитать событие смены статуса: "
+                + record.topic() + "-" + record.partition() + "@" + record.offset());
+    }
+
+    private void rememberSentAfter(int failedIndex, List<ConsumerRecord<String, TaskStatusChangedDto>> records,
+                                   List<Integer> indexes, List<NotificationResult> results) {
+        if (sentAhead.size() > MAX_SENT_AHEAD) {
+            sentAhead.clear();
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).sent() && indexes.get(i) > failedIndex) {
+                sentAhead.add(RecordPosition.of(records.get(indexes.get(i))));
+            }
+        }
+    }
+
+    private record RecordPosition(String topic, int partition, long offset) {
+
+        static RecordPosition of(ConsumerRecord<?, ?> record) {
+            return new RecordPosition(record.topic(), record.partition(), record.offset());
+        }
+    }
 }
@@ -0,0 +1,106 @@
+package com.bsdev.crud_webapp.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перенос записей из {@code <topic>-dlt} обратно в основной топик: {@code POST /actuator/dltreplay}
+ * с необязательным {@code {"max": 100}}.
+ * <p>
+ * Записи копируются байт в байт с тем же ключом, без заголовков kafka_dlt-* и счётчика попыток, поэтому
+ * повторно начинают путь с первой попытки. Смещения DLT коммитятся в отдельной группе только после подтверждения
+ * отправки, так что прерванный перенос можно запустить снова: дубли возможны, потери — нет.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "dltreplay")
+@RequiredArgsConstructor
+public class TaskStatusDltReplayEndpoint {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ConsumerFactory<String, byte[]> rawConsumerFactory;
+    private final KafkaTemplate<String, byte[]> rawKafkaTemplate;
+    private final TaskStatusRetryRouter retryRouter;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${outbox.relay.send-timeout-ms}")
+    private long sendTimeoutMs;
+
+    @WriteOperation
+    public synchronized Map<String, Object> replay(@Nullable Integer max) {
+        int limit = max != null ? max : Integer.MAX_VALUE;
+        int replayed = 0;
+        try (Consumer<String, byte[]> consumer = rawConsumerFactory.createConsumer(groupId + "-dlt-replay", null)) {
+            List<TopicPartition> partitions = consumer.partitionsFor(retryRouter.dltTopic()).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            while (replayed < limit) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                List<CompletableFuture<?>> futures = new ArrayList<>(records.count());
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed == limit) {
+                        break;
+                    }
+                    futures.add(rawKafkaTemplate.send(new ProducerRecord<>(retryRouter.mainTopic(), null,
+                            record.key(), record.value(), replayHeaders(record))).completable());
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                rawKafkaTemplate.flush();
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                        .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                consumer.commitSync(offsets);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Перенос из DLT прерван после " + replayed + " записей", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось перенести записи из DLT, перенесено: " + replayed, e);
+        }
+        log.info("Из {} в {} перенесено записей: {}", retryRouter.dltTopic(), retryRouter.mainTopic(), replayed);
+        return Map.of("replayed", replayed, "from", retryRouter.dltTopic(), "to", retryRouter.mainTopic());
+    }
+
+    private static RecordHeaders replayHeaders(ConsumerRecord<?, ?> record) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(TaskStatusRetryRouter.DLT_HEADER_PREFIX)
+                    && !header.key().equals(TaskStatusRetryRouter.ATTEMPTS_HEADER)) {
+                headers.add(header);
+            }
+        }
+        return headers;
+    }
+}
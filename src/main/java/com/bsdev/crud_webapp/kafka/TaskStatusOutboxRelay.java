@@ -0,0 +1,74 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatusOutboxEvent;
+import com.bsdev.crud_webapp.repository.TaskStatusOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Переносит события смены статуса из таблицы task_status_outbox в Kafka.
+ * Пачка отправляется целиком с одним flush, после подтверждения брокером строки удаляются
+ * в той же транзакции. При ошибке транзакция откатывается и пачка будет отправлена повторно
+ * (at-least-once).
+ * <p>
+ * Разбирает outbox один экземпляр за раз ({@link TaskStatusOutboxRepository#tryLockRelay()}), остальные
+ * пропускают запуск: так события одной задачи уходят в Kafka в порядке записи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskStatusOutboxRelay {
+
+    private final TaskStatusOutboxRepository outboxRepository;
+    private final KafkaTemplate<String, TaskStatusChangedDto> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout-ms}")
+    private long sendTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.fixed-delay-ms}")
+    public void relay() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed == batchSize);
+    }
+
+    int relayBatch() {
+        if (!outboxRepository.tryLockRelay()) {
+            log.debug("Outbox разбирает другой экземпляр, запуск пропущен");
+            return 0;
+        }
+        List<TaskStatusOutboxEvent> events = outboxRepository.lockOldest(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        CompletableFuture<?>[] futures = events.stream()
+                .map(event -> kafkaTemplate.sendDefault(String.valueOf(event.getTaskId()),
+                                new TaskStatusChangedDto(event.getTaskId(), event.getStatus()))
+                        .completable())
+                .toArray(CompletableFuture[]::new);
+        kafkaTemplate.flush();
+        try {
+            CompletableFuture.allOf(futures).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось отправить пачку outbox в Kafka: size=" + events.size(), e);
+        }
+        outboxRepository.deleteAllInBatch(events);
+        log.debug("Отправлена пачка событий outbox: size={}", events.size());
+        return events.size();
+    }
+}
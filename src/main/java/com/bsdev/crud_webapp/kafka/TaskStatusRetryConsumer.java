@@ -0,0 +1,151 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.BatchConsumerAwareMessageListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение уровней повторов {@code <topic>-retry-N}: на каждый уровень свой контейнер, поэтому долгая задержка
+ * одного уровня не держит другие, а основной топик читается без пауз.
+ * <p>
+ * Запись обрабатывается, когда с её публикации прошла задержка уровня. Записи уровня публикуются по порядку
+ * и с одной задержкой, поэтому первая неготовая запись партиции означает, что не готовы и следующие за ней.
+ * Срок считается по каждой партиции отдельно: готовые записи всех партиций обрабатываются одной пачкой и их смещения
+ * коммитятся, а партиция с неготовой записью возвращается к ней ({@code seek}) и ставится на паузу до её срока.
+ * Остальные партиции пауза не задевает. Если запись не удалось передать на следующий уровень, её партиция
+ * возвращается к ней без паузы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskStatusRetryConsumer implements SmartLifecycle {
+
+    @Qualifier("retryListenerContainerFactory")
+    private final ConcurrentKafkaListenerContainerFactory<String, TaskStatusChangedDto> containerFactory;
+
+    private final TaskStatusRetryRouter retryRouter;
+    private final TaskStatusConsumer taskStatusConsumer;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${spring.kafka.listener.auto-startup:true}")
+    private boolean autoStartup;
+
+    private final List<ConcurrentMessageListenerContainer<String, TaskStatusChangedDto>> containers = new ArrayList<>();
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        List<String> topics = retryRouter.retryTopics();
+        for (int attempt = 1; attempt <= topics.size(); attempt++) {
+            Duration delay = retryRouter.delay(attempt);
+            ConcurrentMessageListenerContainer<String, TaskStatusChangedDto> container =
+                    containerFactory.createContainer(topics.get(attempt - 1));
+            container.getContainerProperties().setGroupId(groupId + "-retry");
+            container.setBeanName("taskStatusRetry" + attempt);
+            container.setupMessageListener((BatchConsumerAwareMessageListener<String, TaskStatusChangedDto>)
+                    (records, consumer) -> listen(records, consumer, container, delay));
+            container.start();
+            containers.add(container);
+        }
+        running = true;
+    }
+
+    void listen(List<ConsumerRecord<String, TaskStatusChangedDto>> records, Consumer<?, ?> consumer,
+                MessageListenerContainer container, Duration delay) {
+        long now = System.currentTimeMillis();
+        List<ConsumerRecord<String, TaskStatusChangedDto>> due = new ArrayList<>(records.size());
+        Map<TopicPartition, ConsumerRecord<String, TaskStatusChangedDto>> notDue = new LinkedHashMap<>();
+        for (ConsumerRecord<String, TaskStatusChangedDto> record : records) {
+            TopicPartition partition = partition(record);
+            if (notDue.containsKey(partition)) {
+                continue;
+            }
+            if (record.timestamp() + delay.toMillis() <= now) {
+                due.add(record);
+            } else {
+                notDue.put(partition, record);
+            }
+        }
+
+        int handled = due.size();
+        if (!due.isEmpty()) {
+            log.info("Повтор уведомлений: size={}, topic={}", due.size(), records.get(0).topic());
+            try {
+                taskStatusConsumer.process(due);
+            } catch (BatchListenerFailedException e) {
+                log.warn("Событие не передано на следующий уровень, партиция будет прочитана снова", e);
+                handled = e.getIndex();
+            }
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        Map<TopicPartition, Long> seeks = new LinkedHashMap<>();
+        for (int i = 0; i < due.size(); i++) {
+            ConsumerRecord<String, TaskStatusChangedDto> record = due.get(i);
+            if (i < handled) {
+                commits.put(partition(record), new OffsetAndMetadata(record.offset() + 1));
+            } else {
+                seeks.putIfAbsent(partition(record), record.offset());
+            }
+        }
+        if (!commits.isEmpty()) {
+            consumer.commitSync(commits);
+        }
+        seeks.forEach(consumer::seek);
+        notDue.forEach((partition, record) -> {
+            if (seeks.containsKey(partition)) {
+                return;
+            }
+            consumer.seek(partition, record.offset());
+            container.pausePartition(partition);
+            taskScheduler.schedule(() -> container.resumePartition(partition),
+                    Instant.ofEpochMilli(record.timestamp() + delay.toMillis()));
+        });
+    }
+
+    private static TopicPartition partition(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+
+    @Override
+    public void stop() {
+        containers.forEach(ConcurrentMessageListenerContainer::stop);
+        containers.clear();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return autoStartup;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Маршрутизация неудачных событий смены статуса: {@code <topic>-retry-1 .. <topic>-retry-N} с задержками
+ * из notification.retry.delays, затем {@code <topic>-dlt}.
+ * <p>
+ * Публикует {@link DeadLetterPublishingRecoverer}: ключ сохраняется (порядок событий одной задачи внутри уровня),
+ * в заголовки kafka_dlt-* пишутся класс и сообщение исключения, исходные топик, партиция и смещение, а в
+ * {@link #ATTEMPTS_HEADER} — номер неудачной попытки. Нечитаемые записи сразу уходят в DLT с исходными байтами.
+ */
+public class TaskStatusRetryRouter {
+
+    public static final String ATTEMPTS_HEADER = "task-status-attempts";
+    public static final String DLT_HEADER_PREFIX = "kafka_dlt-";
+
+    private final String mainTopic;
+    private final List<Duration> delays;
+    private final DeadLetterPublishingRecoverer recoverer;
+
+    public TaskStatusRetryRouter(String mainTopic, List<Duration> delays,
+                                 KafkaOperations<String, TaskStatusChangedDto> kafkaTemplate,
+                                 KafkaOperations<String, byte[]> rawKafkaTemplate) {
+        this.mainTopic = mainTopic;
+        this.delays = List.copyOf(delays);
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(TaskStatusChangedDto.class, kafkaTemplate);
+        templates.put(byte[].class, rawKafkaTemplate);
+        this.recoverer = new DeadLetterPublishingRecoverer(templates, this::destination);
+        this.recoverer.setStripPreviousExceptionHeaders(true);
+        this.recoverer.setAppendOriginalHeaders(false);
+        this.recoverer.setHeadersFunction((record, e) -> new RecordHeaders(new Header[]{
+                new RecordHeader(ATTEMPTS_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(attempts(record) + 1).array())
+        }));
+    }
+
+    /**
+     * Публикует запись на следующий уровень и ждёт подтверждения брокера.
+     *
+     * @throws org.springframework.kafka.KafkaException если публикация не удалась
+     */
+    public void route(ConsumerRecord<?, ?> record, Exception cause) {
+        recoverer.accept(record, cause);
+    }
+
+    public List<String> retryTopics() {
+        List<String> topics = new ArrayList<>(delays.size());
+        for (int attempt = 1; attempt <= delays.size(); attempt++) {
+            topics.add(retryTopic(attempt));
+        }
+        return topics;
+    }
+
+    public String retryTopic(int attempt) {
+        return mainTopic + "-retry-" + attempt;
+    }
+
+    public String dltTopic() {
+        return mainTopic + "-dlt";
+    }
+
+    public String mainTopic() {
+        return mainTopic;
+    }
+
+    /**
+     * Задержка уровня: запись из {@code <topic>-retry-N} обрабатывается не раньше, чем через delays[N-1]
+     * после публикации.
+     */
+    public Duration delay(int attempt) {
+        return delays.get(attempt - 1);
+    }
+
+    /**
+     * Число неудачных попыток по заголовку {@link #ATTEMPTS_HEADER}; у записи из основного топика — 0.
+     */
+    public static int attempts(ConsumerRecord<?, ?> record) {
+        int attempts = 0;
+        for (Header header : record.headers().headers(ATTEMPTS_HEADER)) {
+            attempts = Math.max(attempts, ByteBuffer.wrap(header.value()).getInt());
+        }
+        return attempts;
+    }
+
+    private TopicPartition destination(ConsumerRecord<?, ?> record, Exception cause) {
+        int attempts = attempts(record);
+        String topic = record.value() == null || attempts >= delays.size() ? dltTopic() : retryTopic(attempts + 1);
+        return new TopicPartition(topic, -1);
+    }
+}
@@ -1,9 +1,58 @@
 package com.bsdev.crud_webapp.repository;
 
 import com.bsdev.crud_webapp.entity.Task;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    List<Task> findByIdGreaterThanOrderByIdAsc(long after, Pageable pageable);
+
+    /**
+     * Keyset-страницы с фильтрами; индексы — в миграции V4__task_filter_indexes.sql.
+     */
+    List<Task> findByUserIdAndIdGreaterThanOrderByIdAsc(long userId, long after, Pageable pageable);
+
+    List<Task> findByStatusAndIdGreaterThanOrderByIdAsc(TaskStatus status, long after, Pageable pageable);
+
+    List<Task> findByUserIdAndStatusAndIdGreaterThanOrderByIdAsc(long userId, TaskStatus status, long after,
+                                                                 Pageable pageable);
+
+    /**
+     * Полнотекстовый поиск по заголовку и описанию: синтаксис запроса как у поисковиков
+     * (слова, "фраза", -исключение, or), результаты по убыванию ts_rank. Индекс — V7__task_search_index.sql.
+     * <p>
+     * Ранжируются все совпадения, найденные по GIN-индексу: верхние limit выбираются top-N сортировкой
+     * без полной сортировки, но ts_rank считается для каждого совпадения, поэтому время растёт с их числом.
+     */
+    @Query(value = """
+            SELECT id, title, description, user_id, status, version
+            FROM tasks
+            WHERE search_vector @@ websearch_to_tsquery('russian', :query)
+            ORDER BY ts_rank(search_vector, websearch_to_tsquery('russian', :query)) DESC, id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Task> search(@Param("query") String query, @Param("limit") int limit);
+
+    @Query("select t from Task t order by t.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    Stream<Task> streamAllOrderById();
 }
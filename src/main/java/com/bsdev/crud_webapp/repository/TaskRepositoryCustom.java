@@ -0,0 +1,53 @@
+package com.bsdev.crud_webapp.repository;
+
+import com.bsdev.crud_webapp.dto.TaskPatchRequest;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TaskRepositoryCustom {
+
+    /**
+     * Обновляет только переданные поля одним UPDATE и увеличивает версию.
+     *
+     * @param expectedVersion если задана, строка обновляется только при совпадении версии
+     * @return пустой Optional, если строка с таким id (и версией) не найдена
+     */
+    Optional<TaskPatchResult> patch(long id, TaskPatchRequest patch, Long expectedVersion);
+
+    /**
+     * Один DELETE без предварительного SELECT, в отличие от {@link TaskRepository#deleteById}.
+     *
+     * @param expectedVersion если задана, строка удаляется только при совпадении версии
+     * @return пустой Optional, если строка с таким id (и версией) не найдена
+     */
+    Optional<DeletedTask> deleteByIdReturning(long id, Long expectedVersion);
+
+    /**
+     * Удаляет задачи по списку id запросами {@code DELETE ... WHERE id IN (...) RETURNING ...}.
+     *
+     * @return действительно удалённые задачи
+     */
+    List<DeletedTask> deleteAllByIdReturning(Collection<Long> ids);
+
+    /**
+     * Переводит задачи в статус запросами {@code UPDATE ... WHERE id IN (...) AND status <> ? RETURNING ...}.
+     * Задачи, уже находящиеся в этом статусе, не меняются (версия не растёт).
+     *
+     * @return действительно изменённые задачи с прежним статусом
+     */
+    List<StatusTransition> updateStatusReturning(Collection<Long> ids, TaskStatus status);
+
+    record TaskPatchResult(long previousUserId, TaskStatus previousStatus, long userId, TaskStatus status,
+                           long version) {
+        public boolean statusChanged() {
+            return previousStatus != status;
+        }
+    }
+
+    record DeletedTask(long id, long userId, TaskStatus status) { }
+
+    record StatusTransition(long id, long userId, TaskStatus previousStatus, long version) { }
+}
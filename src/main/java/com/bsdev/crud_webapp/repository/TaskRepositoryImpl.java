@@ -0,0 +1,146 @@
+package com.bsdev.crud_webapp.repository;
+
+import com.bsdev.crud_webapp.dto.TaskPatchRequest;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+@RequiredArgsConstructor
+public class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    /**
+     * Размер IN-списка в одном DELETE или UPDATE: держит число bind-параметров далеко от лимита драйвера (32767).
+     */
+    static final int IN_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private static final RowMapper<DeletedTask> DELETED_TASK_MAPPER = (rs, rowNum) -> new DeletedTask(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            TaskStatus.valueOf(rs.getString("status")));
+
+    /**
+     * RETURNING в PostgreSQL отдаёт уже новые значения, поэтому прежние статус и пользователь берутся
+     * из подзапроса по той же строке. FOR UPDATE в подзапросе дожидается параллельной транзакции и читает
+     * её результат, так что прежние значения соответствуют именно тому состоянию, которое перезаписал этот UPDATE.
+     */
+    @Override
+    public Optional<TaskPatchResult> patch(long id, TaskPatchRequest patch, Long expectedVersion) {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", id);
+        StringBuilder set = new StringBuilder("version = t.version + 1");
+        if (patch.title() != null) {
+            set.append(", title = :title");
+            params.addValue("title", patch.title());
+        }
+        if (patch.description() != null) {
+            set.append(", description = :description");
+            params.addValue("description", patch.description());
+        }
+        if (patch.userId() != null) {
+            set.append(", user_id = :userId");
+            params.addValue("userId", patch.userId());
+        }
+        if (patch.status() != null) {
+            set.append(", status = :status");
+            params.addValue("status", patch.status().name());
+        }
+        String versionCondition = "";
+        if (expectedVersion != null) {
+            versionCondition = " AND t.version = :version";
+            params.addValue("version", expectedVersion);
+        }
+
+        String sql = "UPDATE tasks t SET " + set
+                + " FROM (SELECT id, user_id, status FROM tasks WHERE id = :id FOR UPDATE) old"
+                + " WHERE t.id = old.id" + versionCondition
+                + " RETURNING old.user_id AS previous_user_id, old.status AS previous_status,"
+                + " t.user_id, t.status, t.version";
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new TaskPatchResult(
+                        rs.getLong("previous_user_id"),
+                        TaskStatus.valueOf(rs.getString("previous_status")),
+                        rs.getLong("user_id"),
+                        TaskStatus.valueOf(rs.getString("status")),
+                        rs.getLong("version")))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<DeletedTask> deleteByIdReturning(long id, Long expectedVersion) {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", id);
+        String versionCondition = "";
+        if (expectedVersion != null) {
+            versionCondition = " AND version = :version";
+            params.addValue("version", expectedVersion);
+        }
+        return jdbcTemplate.query("DELETE FROM tasks WHERE id = :id" + versionCondition
+                        + " RETURNING id, user_id, status", params, DELETED_TASK_MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Строки блокируются в порядке id, как в {@link #updateStatusReturning}.
+     */
+    @Override
+    public List<DeletedTask> deleteAllByIdReturning(Collection<Long> ids) {
+        List<DeletedTask> deleted = new ArrayList<>(ids.size());
+        for (List<Long> chunk : sortedChunks(ids)) {
+            deleted.addAll(jdbcTemplate.query("DELETE FROM tasks WHERE id IN"
+                            + " (SELECT id FROM tasks WHERE id IN (:ids) ORDER BY id FOR UPDATE)"
+                            + " RETURNING id, user_id, status",
+                    new MapSqlParameterSource("ids", chunk), DELETED_TASK_MAPPER));
+        }
+        return deleted;
+    }
+
+    /**
+     * Прежний статус берётся из подзапроса, как в {@link #patch}. Строки блокируются в порядке id и внутри
+     * части, и между частями ({@link #sortedChunks}), поэтому два параллельных массовых перевода пересекающихся
+     * списков не взаимоблокируются при любом порядке id в запросах. Строка, которую
+     * параллельная транзакция уже перевела в целевой статус, после ожидания блокировки отсеивается условием
+     * {@code status <> :status} и не попадает в результат.
+     */
+    @Override
+    public List<StatusTransition> updateStatusReturning(Collection<Long> ids, TaskStatus status) {
+        List<StatusTransition> changed = new ArrayList<>(ids.size());
+        for (List<Long> chunk : sortedChunks(ids)) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", chunk)
+                    .addValue("status", status.name());
+            changed.addAll(jdbcTemplate.query("UPDATE tasks t SET status = :status, version = t.version + 1"
+                            + " FROM (SELECT id, status FROM tasks WHERE id IN (:ids) AND status <> :status"
+                            + " ORDER BY id FOR UPDATE) old"
+                            + " WHERE t.id = old.id"
+                            + " RETURNING t.id, t.user_id, old.status AS previous_status, t.version",
+                    params, (rs, rowNum) -> new StatusTransition(
+                            rs.getLong("id"),
+                            rs.getLong("user_id"),
+                            TaskStatus.valueOf(rs.getString("previous_status")),
+                            rs.getLong("version"))));
+        }
+        return changed;
+    }
+
+    /**
+     * Различные id по возрастанию, разбитые на части по {@link #IN_CHUNK_SIZE}. Части обрабатываются по очереди
+     * в одной транзакции, поэтому без сортировки два запроса с одними id в разном порядке захватывали бы строки
+     * в разном порядке и могли бы взаимоблокироваться.
+     */
+    static List<List<Long>> sortedChunks(Collection<Long> ids) {
+        List<Long> sorted = List.copyOf(new TreeSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int start = 0; start < sorted.size(); start += IN_CHUNK_SIZE) {
+            chunks.add(sorted.subList(start, Math.min(start + IN_CHUNK_SIZE, sorted.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,102 @@
+package com.bsdev.crud_webapp.repository;
+
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица task_status_counts: число задач по паре (пользователь, статус), см. миграцию V5,
+ * и task_status_totals: общее число задач по статусу, см. миграцию V11.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaskStatusCountRepository {
+
+    /**
+     * Порядок применения изменений: строки счётчиков блокируются всегда в одной последовательности
+     * (сначала по пользователям, затем общие по статусам), поэтому параллельные транзакции не могут
+     * взаимно заблокироваться.
+     */
+    public static final Comparator<UserStatus> LOCK_ORDER =
+            Comparator.comparingLong(UserStatus::userId).thenComparing(UserStatus::status);
+
+    private static final String UPSERT = """
+            INSERT INTO task_status_counts (user_id, status, task_count) VALUES (:userId, :status, :delta)
+            ON CONFLICT (user_id, status) DO UPDATE SET task_count = task_status_counts.task_count + EXCLUDED.task_count
+            """;
+
+    private static final String UPSERT_TOTAL = """
+            INSERT INTO task_status_totals (status, task_count) VALUES (:status, :delta)
+            ON CONFLICT (status) DO UPDATE SET task_count = task_status_totals.task_count + EXCLUDED.task_count
+            """;
+
+    private static final RowMapper<TaskStatusCount> ROW_MAPPER = (rs, rowNum) -> new TaskStatusCount(
+            rs.getLong("user_id"),
+            TaskStatus.valueOf(rs.getString("status")),
+            rs.getLong("task_count"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Прибавляет изменения к счётчикам по пользователям и к общим счётчикам по статусам:
+     * две JDBC-пачки, общие строки — после строк пользователей.
+     *
+     * @param deltas изменения по парам (пользователь, статус); нулевые пропускаются
+     */
+    public void applyDeltas(Map<UserStatus, Long> deltas) {
+        SqlParameterSource[] batch = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey(LOCK_ORDER))
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("userId", delta.getKey().userId())
+                        .addValue("status", delta.getKey().status().name())
+                        .addValue("delta", delta.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        if (batch.length > 0) {
+            jdbcTemplate.batchUpdate(UPSERT, batch);
+        }
+        Map<TaskStatus, Long> totals = new EnumMap<>(TaskStatus.class);
+        deltas.forEach((key, delta) -> totals.merge(key.status(), delta, Long::sum));
+        SqlParameterSource[] totalBatch = totals.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("status", delta.getKey().name())
+                        .addValue("delta", delta.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        if (totalBatch.length > 0) {
+            jdbcTemplate.batchUpdate(UPSERT_TOTAL, totalBatch);
+        }
+    }
+
+    public List<TaskStatusCount> findByUserId(long userId) {
+        return jdbcTemplate.query(
+                "SELECT user_id, status, task_count FROM task_status_counts WHERE user_id = :userId AND task_count <> 0",
+                new MapSqlParameterSource("userId", userId),
+                ROW_MAPPER);
+    }
+
+    /**
+     * Общие числа задач по статусам: по строке на статус, независимо от числа пользователей.
+     */
+    public Map<TaskStatus, Long> findTotals() {
+        Map<TaskStatus, Long> totals = new EnumMap<>(TaskStatus.class);
+        jdbcTemplate.query("SELECT status, task_count FROM task_status_totals",
+                rs -> {
+                    totals.put(TaskStatus.valueOf(rs.getString("status")), rs.getLong("task_count"));
+                });
+        return totals;
+    }
+
+    public record UserStatus(long userId, TaskStatus status) { }
+
+    public record TaskStatusCount(long userId, TaskStatus status, long count) { }
+}
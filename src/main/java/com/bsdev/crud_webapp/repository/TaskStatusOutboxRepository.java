@@ -0,0 +1,29 @@
+package com.bsdev.crud_webapp.repository;
+
+import com.bsdev.crud_webapp.entity.TaskStatusOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskStatusOutboxRepository extends JpaRepository<TaskStatusOutboxEvent, Long> {
+
+    /**
+     * Блокировка «разборщика» outbox до конца транзакции: пачку забирает только один экземпляр приложения.
+     * Параллельные разборщики нарушили бы порядок событий задачи: второй мог бы отправить более новые строки,
+     * пока первый ещё держит старые.
+     *
+     * @return false, если outbox уже разбирает другой экземпляр
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('task_status_outbox'))", nativeQuery = true)
+    boolean tryLockRelay();
+
+    /**
+     * Самые старые события outbox в порядке записи. Вызывается под {@link #tryLockRelay()}.
+     */
+    @Query(value = "SELECT * FROM task_status_outbox ORDER BY id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<TaskStatusOutboxEvent> lockOldest(@Param("limit") int limit);
+}
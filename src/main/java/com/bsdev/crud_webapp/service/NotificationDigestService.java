@@ -0,0 +1,168 @@
+package com.bsdev.crud_webapp.service;
+
+import com.bsdev.crud_webapp.dto.NotificationResult;
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.exception.NotificationSendException;
+import com.bsdev.crud_webapp.kafka.TaskStatusRetryRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Режим сводок: из событий смены статуса остаётся только последнее событие каждой задачи,
+ * и на получателя уходит одно письмо со списком задач.
+ * <p>
+ * При {@code notification.digest.window-ms = 0} события склеиваются в пределах одной пачки Kafka.
+ * Иначе они копятся в буфере в течение окна; подтверждения пачек придерживаются до отправки сводки,
+ * поэтому при падении приложения неотправленные события будут прочитаны повторно.
+ * <p>
+ * События, письмо по которым не ушло, передаются на уровни повторов ({@link TaskStatusRetryRouter}) так же, как
+ * в обычном режиме, после чего пачки подтверждаются: счёт попыток и DLT общие для обоих режимов.
+ * В буфере события остаются, только если не удалась сама передача на повтор; пока она не пройдёт,
+ * новые пачки не копятся, а возвращаются в Kafka ({@link #deferIfRetrying}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationDigestService {
+
+    private final NotificationService notificationService;
+    private final TaskStatusRetryRouter retryRouter;
+
+    @Value("${notification.digest.window-ms}")
+    private long windowMs;
+
+    private final Map<Long, ConsumerRecord<String, TaskStatusChangedDto>> pending = new LinkedHashMap<>();
+    private final List<Acknowledgment> pendingAcks = new ArrayList<>();
+    private long windowStartedAt;
+    private boolean retrying;
+
+    /**
+     * @param records читаемые записи пачки (value не null)
+     * @throws BatchListenerFailedException если неотправленное событие не удалось передать на повтор
+     *                                      (только при window-ms = 0)
+     */
+    public void accept(List<ConsumerRecord<String, TaskStatusChangedDto>> records, Acknowledgment ack) {
+        if (windowMs <= 0) {
+            sendDigest(coalesce(records));
+            ack.acknowledge();
+            return;
+        }
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                windowStartedAt = System.currentTimeMillis();
+            }
+            records.forEach(record -> putLatest(pending, record));
+            pendingAcks.add(ack);
+        }
+    }
+
+    /**
+     * Если события сводки ждут повторной передачи на уровни повторов, возвращает пачку через {@code nack}:
+     * контейнер прочитает её снова через windowMs. Вызывается в потоке слушателя до какой-либо обработки пачки.
+     *
+     * @return true, если пачка возвращена и обрабатывать её не нужно
+     */
+    public boolean deferIfRetrying(Acknowledgment ack) {
+        synchronized (this) {
+            if (!retrying) {
+                return false;
+            }
+        }
+        ack.nack(0, Duration.ofMillis(windowMs));
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.digest.flush-check-ms}")
+    public void flushIfDue() {
+        List<ConsumerRecord<String, TaskStatusChangedDto>> digest;
+        List<Acknowledgment> acks;
+        synchronized (this) {
+            if (pending.isEmpty() || System.currentTimeMillis() - windowStartedAt < windowMs) {
+                return;
+            }
+            digest = new ArrayList<>(pending.values());
+            acks = new ArrayList<>(pendingAcks);
+            pending.clear();
+            pendingAcks.clear();
+        }
+        try {
+            sendDigest(digest);
+            acks.forEach(Acknowledgment::acknowledge);
+            synchronized (this) {
+                retrying = false;
+            }
+        } catch (KafkaException e) {
+            log.warn("События сводки не переданы на повтор, повтор через {} мс: {}", windowMs, e.getMessage());
+            requeue(digest, acks);
+        }
+    }
+
+    static List<ConsumerRecord<String, TaskStatusChangedDto>> coalesce(
+            List<ConsumerRecord<String, TaskStatusChangedDto>> records) {
+        Map<Long, ConsumerRecord<String, TaskStatusChangedDto>> latest = new LinkedHashMap<>();
+        records.forEach(record -> putLatest(latest, record));
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * Отправляет сводку и передаёт на повтор события, письма по которым не ушли.
+     *
+     * @throws BatchListenerFailedException с записью, которую не удалось передать на повтор
+     */
+    private void sendDigest(List<ConsumerRecord<String, TaskStatusChangedDto>> digest) {
+        List<TaskStatusChangedDto> dtos = digest.stream().map(ConsumerRecord::value).toList();
+        List<NotificationResult> results = notificationService.sendStatusDigestEmails(dtos);
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            NotificationResult result = results.get(i);
+            if (!result.sent()) {
+                failed++;
+                route(digest.get(i), new NotificationSendException(result.taskId(), result.error()));
+            }
+        }
+        if (failed > 0) {
+            log.warn("Сводка отправлена частично: tasks={}, на повтор={}", digest.size(), failed);
+        } else {
+            log.info("Отправлена сводка об изменении статусов: tasks={}", digest.size());
+        }
+    }
+
+    private void route(ConsumerRecord<String, TaskStatusChangedDto> record, Exception cause) {
+        try {
+            retryRouter.route(record, cause);
+        } catch (RuntimeException e) {
+            throw new BatchListenerFailedException("Не удалось передать событие сводки на повтор", e, record);
+        }
+    }
+
+    private synchronized void requeue(List<ConsumerRecord<String, TaskStatusChangedDto>> digest,
+                                      List<Acknowledgment> acks) {
+        Map<Long, ConsumerRecord<String, TaskStatusChangedDto>> merged = new LinkedHashMap<>();
+        digest.forEach(record -> merged.put(record.value().taskId(), record));
+        pending.values().forEach(record -> putLatest(merged, record));
+        pending.clear();
+        pending.putAll(merged);
+        pendingAcks.addAll(0, acks);
+        windowStartedAt = System.currentTimeMillis();
+        retrying = true;
+    }
+
+    private static void putLatest(Map<Long, ConsumerRecord<String, TaskStatusChangedDto>> records,
+                                  ConsumerRecord<String, TaskStatusChangedDto> record) {
+        records.remove(record.value().taskId());
+        records.put(record.value().taskId(), record);
+    }
+}
@@ -1,29 +1,177 @@
 package com.bsdev.crud_webapp.service;
 
+import com.bsdev.crud_webapp.dto.NotificationResult;
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
 
     private final JavaMailSender mailSender;
 
+    @Qualifier("notificationExecutor")
+    private final Executor notificationExecutor;
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${notification.from}")
     private String from;
 
     @Value("${notification.to}")
     private String defaultRecipient;
 
+    @Value("${notification.batch-size}")
+    private int batchSize;
+
+    @Value("${notification.concurrency}")
+    private int concurrency;
+
     public void sendStatusChangedEmail(long taskId, String status) {
+        mailSender.send(buildStatusChangedMessage(taskId, status));
+    }
+
+    /**
+     * Письма раскладываются по {@code notification.concurrency} параллельным «дорожкам» по id задачи: все письма
+     * одной задачи попадают в одну дорожку и отправляются в исходном порядке, дорожки выполняются
+     * в {@code notificationExecutor}. Внутри дорожки письма уходят пачками по {@code notification.batch-size}:
+     * каждая пачка — один вызов {@link JavaMailSender#send(SimpleMailMessage...)} через одно SMTP-соединение.
+     * Результаты возвращаются в порядке входного списка.
+     */
+    public List<NotificationResult> sendStatusChangedEmails(List<TaskStatusChangedDto> dtos) {
+        int lanes = Math.max(1, Math.min(concurrency, dtos.size()));
+        List<List<Integer>> laneIndexes = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            laneIndexes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < dtos.size(); i++) {
+            laneIndexes.get(Math.floorMod(Long.hashCode(dtos.get(i).taskId()), lanes)).add(i);
+        }
+
+        NotificationResult[] results = new NotificationResult[dtos.size()];
+        List<CompletableFuture<Void>> futures = new ArrayList<>(lanes);
+        for (List<Integer> indexes : laneIndexes) {
+            if (!indexes.isEmpty()) {
+                futures.add(CompletableFuture.runAsync(() -> sendLane(dtos, indexes, results), notificationExecutor));
+            }
+        }
+        futures.forEach(CompletableFuture::join);
+        return List.of(results);
+    }
+
+    private void sendLane(List<TaskStatusChangedDto> dtos, List<Integer> indexes, NotificationResult[] results) {
+        for (int start = 0; start < indexes.size(); start += batchSize) {
+            List<Integer> chunkIndexes = indexes.subList(start, Math.min(start + batchSize, indexes.size()));
+            List<NotificationResult> chunkResults = sendChunk(chunkIndexes.stream().map(dtos::get).toList());
+            for (int i = 0; i < chunkIndexes.size(); i++) {
+                results[chunkIndexes.get(i)] = chunkResults.get(i);
+            }
+        }
+    }
+
+    /**
+     * Сводка: одно письмо на получателя со списком задач и их последними статусами.
+     * Все письма-сводки отправляются одним вызовом {@link JavaMailSender#send(SimpleMailMessage...)}.
+     */
+    public List<NotificationResult> sendStatusDigestEmails(List<TaskStatusChangedDto> dtos) {
+        Map<String, List<TaskStatusChangedDto>> byRecipient = dtos.stream()
+                .collect(Collectors.groupingBy(this::recipientFor, LinkedHashMap::new, Collectors.toList()));
+        Map<String, SimpleMailMessage> messages = new LinkedHashMap<>();
+        byRecipient.forEach((recipient, tasks) -> messages.put(recipient, buildDigestMessage(recipient, tasks)));
+
+        Map<Object, String> failed = sendAll(messages.values().toArray(SimpleMailMessage[]::new));
+        List<NotificationResult> results = new ArrayList<>(dtos.size());
+        for (TaskStatusChangedDto dto : dtos) {
+            String error = failed.get(messages.get(recipientFor(dto)));
+            results.add(new NotificationResult(dto.taskId(), error == null, error));
+        }
+        return results;
+    }
+
+    private List<NotificationResult> sendChunk(List<TaskStatusChangedDto> chunk) {
+        SimpleMailMessage[] messages = chunk.stream()
+                .map(dto -> buildStatusChangedMessage(dto.taskId(), dto.status().name()))
+                .toArray(SimpleMailMessage[]::new);
+        Map<Object, String> failed = sendAll(messages);
+        List<NotificationResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < messages.length; i++) {
+            String error = failed.get(messages[i]);
+            results.add(new NotificationResult(chunk.get(i).taskId(), error == null, error));
+        }
+        return results;
+    }
+
+    /**
+     * Время одного обращения к SMTP пишется в таймер notification.smtp.send (result=success|failure),
+     * число писем — в счётчик notification.messages (result=sent|failed).
+     */
+    private Map<Object, String> sendAll(SimpleMailMessage[] messages) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<Object, String> failed;
+        try {
+            mailSender.send(messages);
+            failed = Map.of();
+        } catch (MailSendException e) {
+            failed = new HashMap<>();
+            for (Map.Entry<Object, Exception> entry : e.getFailedMessages().entrySet()) {
+                failed.put(entry.getKey(), entry.getValue().getMessage());
+            }
+        } catch (MailException e) {
+            failed = new HashMap<>();
+            for (SimpleMailMessage message : messages) {
+                failed.put(message, e.getMessage());
+            }
+        }
+        sample.stop(meterRegistry.timer("notification.smtp.send", "result", failed.isEmpty() ? "success" : "failure"));
+        meterRegistry.counter("notification.messages", "result", "sent").increment(messages.length - failed.size());
+        meterRegistry.counter("notification.messages", "result", "failed").increment(failed.size());
+        return failed;
+    }
+
+    private String recipientFor(TaskStatusChangedDto dto) {
+        // пока все уведомления уходят одному получателю из notification.to
+        return defaultRecipient;
+    }
+
+    SimpleMailMessage buildDigestMessage(String recipient, List<TaskStatusChangedDto> dtos) {
+        SimpleMailMessage msg = new SimpleMailMessage();
+        msg.setFrom(from);
+        msg.setTo(recipient);
+        msg.setSubject("Изменились статусы задач: " + dtos.size());
+        StringBuilder text = new StringBuilder();
+        for (TaskStatusChangedDto dto : dtos) {
+            text.append("Задача с ID ").append(dto.taskId())
+                    .append(" теперь имеет новый статус: ").append(dto.status().name())
+                    .append('\n');
+        }
+        msg.setText(text.toString());
+        return msg;
+    }
+
+    SimpleMailMessage buildStatusChangedMessage(long taskId, String status) {
         SimpleMailMessage msg = new SimpleMailMessage();
         msg.setFrom(from);
         msg.setTo(defaultRecipient);
         msg.setSubject("Задача с ID: " + taskId + " изменила свой статус");
         msg.setText("Задача с ID " + taskId + " теперь имеет новый статус: " + status);
-        mailSender.send(msg);
+        return msg;
     }
-}
\ No newline at end of file
+}
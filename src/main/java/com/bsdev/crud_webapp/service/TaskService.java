@@ -1,35 +1,88 @@
 package com.bsdev.crud_webapp.service;
 
+import com.bsdev.crud_webapp.cache.TaskCache;
+import com.bsdev.crud_webapp.cache.TaskCacheInvalidationPublisher;
+import com.bsdev.crud_webapp.datasource.PrimaryPin;
+import com.bsdev.crud_webapp.dto.TaskPageResponse;
+import com.bsdev.crud_webapp.dto.TaskPatchRequest;
 import com.bsdev.crud_webapp.dto.TaskRequest;
 import com.bsdev.crud_webapp.dto.TaskResponse;
-import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
 import com.bsdev.crud_webapp.entity.Task;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.entity.TaskStatusOutboxEvent;
+import com.bsdev.crud_webapp.exception.TaskConcurrentModificationException;
 import com.bsdev.crud_webapp.exception.TaskNotFoundException;
+import com.bsdev.crud_webapp.exception.TaskVersionMismatchException;
 import com.bsdev.crud_webapp.repository.TaskRepository;
+import com.bsdev.crud_webapp.repository.TaskRepositoryCustom.DeletedTask;
+import com.bsdev.crud_webapp.repository.TaskRepositoryCustom.StatusTransition;
+import com.bsdev.crud_webapp.repository.TaskRepositoryCustom.TaskPatchResult;
+import com.bsdev.crud_webapp.repository.TaskStatusOutboxRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService {
 
+    public static final int MAX_PAGE_LIMIT = 1000;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    static final int INSERT_CHUNK_SIZE = 500;
+
     private final TaskRepository taskRepository;
-    private final KafkaTemplate<String, TaskStatusChangedDto> kafkaTemplate;
+    private final TaskStatusOutboxRepository outboxRepository;
+    private final EntityManager entityManager;
+    private final TaskCache taskCache;
+    private final TaskCacheInvalidationPublisher cacheInvalidationPublisher;
+    private final TaskStatsService taskStatsService;
+
 
     @Transactional
     public TaskResponse createTask(TaskRequest taskRequest) {
-        Task task = Task.builder()
-                .title(taskRequest.title())
-                .description(taskRequest.description())
-                .userId(taskRequest.userId())
-                .status(taskRequest.status())
-                .build();
-        Task result = taskRepository.save(task);
-        return toResponse(result);
+        Task result = taskRepository.save(toEntity(taskRequest));
+        taskStatsService.taskCreated(result.getUserId(), result.getStatus());
+        TaskResponse response = toResponse(result);
+        taskCache.putAfterCommit(response);
+        cacheInvalidationPublisher.publishAfterCommit(response.id());
+        return response;
+    }
+
+    /**
+     * Массовое создание задач. Id берутся из пула последовательности, поэтому Hibernate
+     * отправляет INSERT-ы JDBC-пачками (hibernate.jdbc.batch_size). Контекст персистентности
+     * сбрасывается и очищается каждые {@link #INSERT_CHUNK_SIZE} задач.
+     */
+    @Transactional
+    public List<Long> createTasks(List<TaskRequest> taskRequests) {
+        List<Long> ids = new ArrayList<>(taskRequests.size());
+        for (int from = 0; from < taskRequests.size(); from += INSERT_CHUNK_SIZE) {
+            List<Task> chunk = taskRequests.subList(from, Math.min(from + INSERT_CHUNK_SIZE, taskRequests.size()))
+                    .stream()
+                    .map(TaskService::toEntity)
+                    .toList();
+            taskRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+            chunk.forEach(task -> {
+                ids.add(task.getId());
+                taskStatsService.taskCreated(task.getUserId(), task.getStatus());
+            });
+        }
+        taskCache.evictAllAfterCommit(ids);
+        ids.forEach(cacheInvalidationPublisher::publishAfterCommit);
+        return ids;
     }
 
     private Task getTaskByIdOrThrow(Long id) {
@@ -38,44 +91,239 @@ public class TaskService {
     }
 
     public TaskResponse findTaskByIdOrThrow(Long id) {
-        Task task = getTaskByIdOrThrow(id);
-        return toResponse(task);
+        return taskCache.get(id, this::loadTask)
+                .orElseThrow(() -> new TaskNotFoundException(id));
     }
 
+    /**
+     * findById выполняется в readOnly-транзакции репозитория и с репликой читает с неё. Недавно изменённая задача
+     * читается с основной базы: реплика могла ещё не догнать изменение, а прочитанное осталось бы в кэше.
+     */
+    private Optional<TaskResponse> loadTask(long id) {
+        Supplier<Optional<TaskResponse>> load = () -> taskRepository.findById(id).map(TaskService::toResponse);
+        return taskCache.isRecentlyInvalidated(id) ? PrimaryPin.call(load) : load.get();
+    }
+
+    /**
+     * @param expectedVersion версия из If-Match или null для безусловного обновления
+     * @return новая версия задачи
+     */
     @Transactional
-    public void updateTask(Long id, TaskRequest taskRequest) {
+    public long updateTask(Long id, TaskRequest taskRequest, Long expectedVersion) {
         Task task = getTaskByIdOrThrow(id);
-        boolean statusChanged = task.getStatus() != taskRequest.status();
+        checkVersion(task, expectedVersion);
+        long previousUserId = task.getUserId();
+        TaskStatus previousStatus = task.getStatus();
+        boolean statusChanged = previousStatus != taskRequest.status();
         task.setTitle(taskRequest.title());
         task.setDescription(taskRequest.description());
         task.setUserId(taskRequest.userId());
         task.setStatus(taskRequest.status());
-        taskRepository.save(task);
+        flushVersioned(id, expectedVersion, () -> taskRepository.saveAndFlush(task));
+        taskStatsService.taskMoved(previousUserId, previousStatus, task.getUserId(), task.getStatus());
+        taskCache.evictAfterCommit(id);
+        cacheInvalidationPublisher.publishAfterCommit(id);
 
         if (statusChanged) {
-            kafkaTemplate.sendDefault(new TaskStatusChangedDto(id, taskRequest.status()));
-            kafkaTemplate.flush();
+            outboxRepository.save(TaskStatusOutboxEvent.builder()
+                    .taskId(id)
+                    .status(taskRequest.status())
+                    .createdAt(Instant.now())
+                    .build());
+        }
+        return task.getVersion();
+    }
+
+    /**
+     * Частичное обновление без предварительного SELECT: один UPDATE по изменённым столбцам
+     * (см. {@link TaskRepository#patch}). Событие смены статуса пишется в outbox, только если статус
+     * действительно изменился. Запрос без полей лишь проверяет существование и версию.
+     *
+     * @param expectedVersion версия из If-Match или null для безусловного обновления
+     * @return новая версия задачи
+     */
+    @Transactional
+    public long patchTask(Long id, TaskPatchRequest patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            Task task = getTaskByIdOrThrow(id);
+            checkVersion(task, expectedVersion);
+            return task.getVersion();
+        }
+        TaskPatchResult result = taskRepository.patch(id, patch, expectedVersion)
+                .orElseThrow(() -> expectedVersion != null && taskRepository.existsById(id)
+                        ? new TaskVersionMismatchException(id, expectedVersion)
+                        : new TaskNotFoundException(id));
+        taskStatsService.taskMoved(result.previousUserId(), result.previousStatus(), result.userId(), result.status());
+        taskCache.evictAfterCommit(id);
+        cacheInvalidationPublisher.publishAfterCommit(id);
+
+        if (result.statusChanged()) {
+            outboxRepository.save(TaskStatusOutboxEvent.builder()
+                    .taskId(id)
+                    .status(result.status())
+                    .createdAt(Instant.now())
+                    .build());
         }
+        return result.version();
     }
 
+    /**
+     * Один DELETE без предварительного чтения; отсутствие задачи определяется по числу удалённых строк.
+     *
+     * @param expectedVersion версия из If-Match или null для безусловного удаления
+     */
     @Transactional
-    public void deleteTask(Long id) {
-        findTaskByIdOrThrow(id);
-        taskRepository.deleteById(id);
+    public void deleteTask(Long id, Long expectedVersion) {
+        DeletedTask deleted = taskRepository.deleteByIdReturning(id, expectedVersion)
+                .orElseThrow(() -> expectedVersion != null && taskRepository.existsById(id)
+                        ? new TaskVersionMismatchException(id, expectedVersion)
+                        : new TaskNotFoundException(id));
+        taskStatsService.taskDeleted(deleted.userId(), deleted.status());
+        taskCache.evictAfterCommit(id);
+        cacheInvalidationPublisher.publishAfterCommit(id);
     }
 
+    /**
+     * Массовое удаление: несуществующие id пропускаются.
+     *
+     * @return id удалённых задач
+     */
+    @Transactional
+    public List<Long> deleteTasks(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> deleted = new ArrayList<>();
+        for (DeletedTask task : taskRepository.deleteAllByIdReturning(ids)) {
+            deleted.add(task.id());
+            taskStatsService.taskDeleted(task.userId(), task.status());
+        }
+        taskCache.evictAllAfterCommit(deleted);
+        deleted.forEach(cacheInvalidationPublisher::publishAfterCommit);
+        return deleted;
+    }
+
+    /**
+     * Массовый перевод задач в статус без чтения задач: один UPDATE на каждые 1000 id
+     * (см. {@link TaskRepository#updateStatusReturning}). События в outbox пишутся только для изменённых задач
+     * и вставляются JDBC-пачками; в Kafka их отправляет {@code TaskStatusOutboxRelay} пачкой после коммита.
+     * Несуществующие id и задачи, уже находящиеся в этом статусе, пропускаются.
+     *
+     * @return id задач, статус которых изменился
+     */
+    @Transactional
+    public List<Long> transitionStatus(Collection<Long> ids, TaskStatus status) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<StatusTransition> transitions = taskRepository.updateStatusReturning(ids, status);
+        List<Long> changed = new ArrayList<>(transitions.size());
+        List<TaskStatusOutboxEvent> events = new ArrayList<>(transitions.size());
+        Instant now = Instant.now();
+        for (StatusTransition transition : transitions) {
+            changed.add(transition.id());
+            taskStatsService.taskMoved(transition.userId(), transition.previousStatus(), transition.userId(), status);
+            events.add(TaskStatusOutboxEvent.builder()
+                    .taskId(transition.id())
+                    .status(status)
+                    .createdAt(now)
+                    .build());
+        }
+        outboxRepository.saveAll(events);
+        taskCache.evictAllAfterCommit(changed);
+        changed.forEach(cacheInvalidationPublisher::publishAfterCommit);
+        return changed;
+    }
+
+    private static void checkVersion(Task task, Long expectedVersion) {
+        if (expectedVersion != null && task.getVersion() != expectedVersion) {
+            throw new TaskVersionMismatchException(task.getId(), expectedVersion);
+        }
+    }
+
+    /**
+     * Hibernate добавляет {@code AND version = ?} в UPDATE. Если строку успел изменить параллельный запрос,
+     * это условное обновление отвечает 412, а безусловное — 409.
+     */
+    private static void flushVersioned(Long id, Long expectedVersion, Runnable write) {
+        try {
+            write.run();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (expectedVersion != null) {
+                throw new TaskVersionMismatchException(id, expectedVersion);
+            }
+            throw new TaskConcurrentModificationException(id, e);
+        }
+    }
+
+    @Transactional(readOnly = true)
     public List<TaskResponse> findAllTasks() {
         return taskRepository.findAll()
                 .stream()
-                .map(this::toResponse)
+                .map(TaskService::toResponse)
+                .toList();
+    }
+
+    /**
+     * Полнотекстовый поиск по заголовку и описанию, самые релевантные задачи первыми.
+     * Пустой запрос ничего не ищет.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskResponse> searchTasks(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return taskRepository.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)))
+                .stream()
+                .map(TaskService::toResponse)
                 .toList();
     }
 
-    private TaskResponse toResponse(Task task) {
+    /**
+     * Keyset-пагинация: WHERE [user_id = ?] [AND status = ?] AND id > :after ORDER BY id LIMIT :limit + 1.
+     * Лишняя строка нужна только для того, чтобы понять, есть ли следующая страница.
+     * Для каждого сочетания фильтров свой запрос, чтобы PostgreSQL выбирал подходящий индекс.
+     *
+     * @param userId фильтр по пользователю или null
+     * @param status фильтр по статусу или null
+     */
+    @Transactional(readOnly = true)
+    public TaskPageResponse findTasksPage(long after, int limit, Long userId, TaskStatus status) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_LIMIT));
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<Task> tasks;
+        if (userId != null && status != null) {
+            tasks = taskRepository.findByUserIdAndStatusAndIdGreaterThanOrderByIdAsc(userId, status, after, page);
+        } else if (userId != null) {
+            tasks = taskRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, after, page);
+        } else if (status != null) {
+            tasks = taskRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, after, page);
+        } else {
+            tasks = taskRepository.findByIdGreaterThanOrderByIdAsc(after, page);
+        }
+        List<TaskResponse> items = tasks.stream()
+                .limit(pageSize)
+                .map(TaskService::toResponse)
+                .toList();
+        Long next = tasks.size() > pageSize ? items.get(pageSize - 1).id() : null;
+        return new TaskPageResponse(items, next);
+    }
+
+    private static Task toEntity(TaskRequest taskRequest) {
+        return Task.builder()
+                .title(taskRequest.title())
+                .description(taskRequest.description())
+                .userId(taskRequest.userId())
+                .status(taskRequest.status())
+                .build();
+    }
+
+    static TaskResponse toResponse(Task task) {
         return new TaskResponse(task.getId(),
                 task.getTitle(),
                 task.getDescription(),
                 task.getUserId(),
-                task.getStatus());
+                task.getStatus(),
+                task.getVersion());
     }
 }
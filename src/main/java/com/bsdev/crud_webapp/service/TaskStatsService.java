@@ -0,0 +1,103 @@
+package com.bsdev.crud_webapp.service;
+
+import com.bsdev.crud_webapp.dto.TaskStatsResponse;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.repository.TaskStatusCountRepository;
+import com.bsdev.crud_webapp.repository.TaskStatusCountRepository.TaskStatusCount;
+import com.bsdev.crud_webapp.repository.TaskStatusCountRepository.UserStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Счётчики задач по пользователю и статусу (таблица task_status_counts) и общие по статусу (task_status_totals).
+ * <p>
+ * Изменения копятся в пределах транзакции и записываются одной пачкой перед коммитом: строки счётчиков
+ * блокируются только на время коммита, а создание, перевод в другой статус и удаление задачи в одной
+ * транзакции схлопываются. Вне транзакции изменение записывается сразу.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskStatsService {
+
+    private final TaskStatusCountRepository countRepository;
+
+    public void taskCreated(long userId, TaskStatus status) {
+        add(userId, status, 1);
+    }
+
+    public void taskDeleted(long userId, TaskStatus status) {
+        add(userId, status, -1);
+    }
+
+    public void taskMoved(long previousUserId, TaskStatus previousStatus, long userId, TaskStatus status) {
+        if (previousUserId == userId && previousStatus == status) {
+            return;
+        }
+        add(previousUserId, previousStatus, -1);
+        add(userId, status, 1);
+    }
+
+    /**
+     * Общие счётчики по статусам; с userId — ещё и счётчики этого пользователя.
+     * Оба чтения — по первичному ключу, их стоимость не зависит ни от числа задач, ни от числа пользователей.
+     */
+    @Transactional(readOnly = true)
+    public TaskStatsResponse getStats(Long userId) {
+        Map<TaskStatus, Long> total = withAllStatuses(countRepository.findTotals());
+        if (userId == null) {
+            return new TaskStatsResponse(total, Map.of());
+        }
+        return new TaskStatsResponse(total, groupByUser(countRepository.findByUserId(userId)));
+    }
+
+    private void add(long userId, TaskStatus status, long delta) {
+        UserStatus key = new UserStatus(userId, status);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            countRepository.applyDeltas(Map.of(key, delta));
+            return;
+        }
+        PendingDeltas pending = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(PendingDeltas.class::isInstance)
+                .map(PendingDeltas.class::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    PendingDeltas created = new PendingDeltas();
+                    TransactionSynchronizationManager.registerSynchronization(created);
+                    return created;
+                });
+        pending.deltas.merge(key, delta, Long::sum);
+    }
+
+    private static Map<Long, Map<TaskStatus, Long>> groupByUser(List<TaskStatusCount> counts) {
+        Map<Long, Map<TaskStatus, Long>> byUser = new TreeMap<>();
+        counts.forEach(count -> byUser.computeIfAbsent(count.userId(), id -> withAllStatuses(Map.of()))
+                .put(count.status(), count.count()));
+        return byUser;
+    }
+
+    private static Map<TaskStatus, Long> withAllStatuses(Map<TaskStatus, Long> counts) {
+        Map<TaskStatus, Long> result = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            result.put(status, counts.getOrDefault(status, 0L));
+        }
+        return result;
+    }
+
+    private final class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<UserStatus, Long> deltas = new TreeMap<>(TaskStatusCountRepository.LOCK_ORDER);
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            countRepository.applyDeltas(deltas);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Keyset-страница задач пользователя без фильтра по статусу: WHERE user_id = ? AND id > ? ORDER BY id LIMIT n.
+-- Индекс (user_id, status, id) из V4 её не обслуживает: внутри пользователя строки упорядочены сначала по status,
+-- и PostgreSQL пришлось бы прочитать и отсортировать все задачи пользователя. Нужен отдельный (user_id, id).
+--
+-- Индекс появляется только здесь, поэтому он удаляется и строится заново без IF NOT EXISTS: повторный запуск после
+-- прерванного построения не оставит невалидный индекс. Индексы V4 и V7 строятся, только если V9 их удалила.
+DROP INDEX CONCURRENTLY IF EXISTS idx_tasks_user_id_id;
+CREATE INDEX CONCURRENTLY idx_tasks_user_id_id ON tasks (user_id, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_user_id_status_id ON tasks (user_id, status, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_status_id ON tasks (status, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_search_vector ON tasks USING gin (search_vector);
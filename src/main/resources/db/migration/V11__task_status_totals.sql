@@ -0,0 +1,18 @@
+-- Общие счётчики задач по статусу для GET /tasks/stats без userId (TaskStatsService).
+-- Обновляются тем же пакетом перед коммитом, что и task_status_counts, поэтому общая статистика
+-- читается из трёх строк, а не суммируется по всем пользователям.
+CREATE TABLE IF NOT EXISTS task_status_totals
+(
+    status     varchar(255) NOT NULL PRIMARY KEY,
+    task_count bigint       NOT NULL
+);
+
+-- Начальное заполнение из счётчиков по пользователям. SHARE блокирует их изменение до конца миграции,
+-- чтобы суммы совпали.
+LOCK TABLE task_status_counts IN SHARE MODE;
+
+INSERT INTO task_status_totals (status, task_count)
+SELECT status, sum(task_count)
+FROM task_status_counts
+GROUP BY status
+ON CONFLICT (status) DO NOTHING;
@@ -0,0 +1,23 @@
+-- Исходная схема, которую раньше создавал Hibernate (ddl-auto: update).
+-- IF NOT EXISTS позволяет применить миграцию к базе, уже созданной Hibernate.
+
+CREATE SEQUENCE IF NOT EXISTS tasks_id_seq;
+
+CREATE TABLE IF NOT EXISTS tasks
+(
+    id          bigint       NOT NULL PRIMARY KEY,
+    title       varchar(255),
+    description varchar(255),
+    user_id     bigint       NOT NULL,
+    status      varchar(255) NOT NULL
+);
+
+CREATE SEQUENCE IF NOT EXISTS task_status_outbox_id_seq;
+
+CREATE TABLE IF NOT EXISTS task_status_outbox
+(
+    id         bigint       NOT NULL PRIMARY KEY,
+    task_id    bigint       NOT NULL,
+    status     varchar(255) NOT NULL,
+    created_at timestamp    NOT NULL
+);
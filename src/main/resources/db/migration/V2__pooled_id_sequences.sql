@@ -0,0 +1,4 @@
+-- Шаг последовательностей должен совпадать с allocationSize (Task.ID_ALLOCATION_SIZE):
+-- Hibernate выдаёт id пулами по 50 и группирует INSERT-ы в JDBC-пачки.
+ALTER SEQUENCE tasks_id_seq INCREMENT BY 50;
+ALTER SEQUENCE task_status_outbox_id_seq INCREMENT BY 50;
@@ -0,0 +1,2 @@
+-- Версия строки для оптимистической блокировки и ETag (Task.version).
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
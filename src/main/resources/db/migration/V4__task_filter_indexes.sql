@@ -0,0 +1,6 @@
+-- Индексы для GET /tasks?userId=&status= с keyset-пагинацией (WHERE ... AND id > :after ORDER BY id).
+-- (user_id, status, id) обслуживает фильтр по пользователю и по пользователю со статусом,
+-- (status, id) — фильтр только по статусу.
+-- CONCURRENTLY не блокирует запись в таблицу; Flyway выполняет такую миграцию вне транзакции.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_user_id_status_id ON tasks (user_id, status, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_status_id ON tasks (status, id);
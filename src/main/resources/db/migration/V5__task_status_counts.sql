@@ -0,0 +1,19 @@
+-- Счётчики задач по пользователю и статусу для GET /tasks/stats (TaskStatsService).
+-- Обновляются в той же транзакции, что и сама задача, поэтому статистика читается без скана tasks.
+CREATE TABLE IF NOT EXISTS task_status_counts
+(
+    user_id    bigint       NOT NULL,
+    status     varchar(255) NOT NULL,
+    task_count bigint       NOT NULL,
+    PRIMARY KEY (user_id, status)
+);
+
+-- Начальное заполнение по уже существующим задачам. SHARE блокирует запись в tasks до конца миграции,
+-- чтобы счётчики совпали с содержимым таблицы.
+LOCK TABLE tasks IN SHARE MODE;
+
+INSERT INTO task_status_counts (user_id, status, task_count)
+SELECT user_id, status, count(*)
+FROM tasks
+GROUP BY user_id, status
+ON CONFLICT (user_id, status) DO NOTHING;
@@ -0,0 +1,10 @@
+-- Полнотекстовый поиск по задачам (GET /tasks/search). Вектор — хранимый генерируемый столбец:
+-- PostgreSQL сам пересчитывает его при каждом INSERT и UPDATE, приложение его не пишет.
+-- Заголовок весит больше описания (A > B), это учитывается при ранжировании.
+-- Конфигурация russian стеммит русские слова, а латиницу — английским стеммером.
+-- Добавление столбца переписывает таблицу под эксклюзивной блокировкой.
+ALTER TABLE tasks
+    ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+    ) STORED;
@@ -0,0 +1,3 @@
+-- GIN-индекс для search_vector @@ tsquery. CONCURRENTLY не блокирует запись в таблицу;
+-- Flyway выполняет такую миграцию вне транзакции, поэтому она отделена от V6.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_search_vector ON tasks USING gin (search_vector);
@@ -0,0 +1,3 @@
+-- События outbox получают id по одному (allocationSize = 1), а не пулами по 50:
+-- порядок id событий одной задачи должен совпадать с порядком их записи.
+ALTER SEQUENCE task_status_outbox_id_seq INCREMENT BY 1;
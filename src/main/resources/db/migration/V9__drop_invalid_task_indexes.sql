@@ -0,0 +1,21 @@
+-- Прерванный CREATE INDEX CONCURRENTLY оставляет индекс в состоянии INVALID, а IF NOT EXISTS при повторном запуске
+-- его пропускает — фильтр навсегда остался бы без индекса. Здесь удаляются невалидные индексы V4 и V7, V10 строит
+-- их заново. Миграция транзакционная (DO) и потому отделена от V10 с CREATE INDEX CONCURRENTLY.
+-- DROP INDEX без CONCURRENTLY (внутри DO он невозможен) выполняется только для невалидного индекса, которым
+-- запросы всё равно не пользуются, и блокирует tasks лишь на время удаления.
+DO
+$$
+DECLARE
+    invalid_index text;
+BEGIN
+    FOR invalid_index IN
+        SELECT c.relname
+        FROM pg_index i
+                 JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE NOT i.indisvalid
+          AND c.relname IN ('idx_tasks_user_id_status_id', 'idx_tasks_status_id', 'idx_tasks_search_vector')
+        LOOP
+            EXECUTE format('DROP INDEX %I', invalid_index);
+        END LOOP;
+END
+$$;
@@ -0,0 +1,140 @@
+package com.bsdev.crud_webapp.audit;
+
+import com.bsdev.crud_webapp.dto.TaskPageResponse;
+import com.bsdev.crud_webapp.dto.TaskResponse;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.exception.TaskNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuditLogAspectTest {
+
+    @Mock
+    private AuditLogWriter writer;
+
+    private AuditedEndpoints endpoints;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("audit.sample-rates.list-tasks", "0");
+        AuditLogAspect aspect = new AuditLogAspect(writer, environment);
+        ReflectionTestUtils.setField(aspect, "enabled", true);
+        ReflectionTestUtils.setField(aspect, "defaultSampleRate", 1.0);
+        ReflectionTestUtils.setField(aspect, "maxIds", 3);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new AuditedEndpoints());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        endpoints = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("тест аудита: в запись попадают размер и первые id ответа, а не весь ответ")
+    void successfulCallIsSummarized() {
+        endpoints.page(0, 100);
+
+        ArgumentCaptor<AuditRecord> captor = ArgumentCaptor.forClass(AuditRecord.class);
+        verify(writer).submit(captor.capture());
+        AuditRecord record = captor.getValue();
+        assertEquals("get-page", record.endpoint());
+        assertNull(record.error());
+        assertEquals(new PayloadSummary("TaskPageResponse", 100, List.of(1L, 2L, 3L), true, "next=100"),
+                record.result());
+        assertEquals("Integer(100)", record.args().get("limit").toString());
+        assertEquals("TaskPageResponse[size=100, ids=[1, 2, 3]…, next=100]", record.result().toString());
+    }
+
+    @Test
+    @DisplayName("тест аудита: эндпоинт с долей 0 не пишет успешные вызовы, но ошибки пишутся всегда")
+    void sampledOutEndpointStillRecordsErrors() {
+        endpoints.list(false);
+        verify(writer, never()).submit(any());
+
+        assertThrows(TaskNotFoundException.class, () -> endpoints.list(true));
+        ArgumentCaptor<AuditRecord> captor = ArgumentCaptor.forClass(AuditRecord.class);
+        verify(writer).submit(captor.capture());
+        assertEquals("list-tasks", captor.getValue().endpoint());
+        assertTrue(captor.getValue().error().startsWith("TaskNotFoundException"));
+    }
+
+    @Test
+    @DisplayName("тест сводки: ResponseEntity разворачивается, длинные строки обрезаются")
+    void responseEntityAndLongStringsAreSummarized() {
+        TaskResponse task = new TaskResponse(7L, "Задача", "Описание", 1L, TaskStatus.NEW, 0L);
+        assertEquals("TaskResponse[ids=[7], status=200]", PayloadSummary.of(ResponseEntity.ok(task), 10).toString());
+
+        PayloadSummary query = PayloadSummary.of("x".repeat(1000), 10);
+        assertTrue(query.truncated());
+        assertEquals(PayloadSummary.MAX_VALUE_LENGTH, query.value().length());
+    }
+
+    @Test
+    @DisplayName("тест буфера: при переполнении запись отбрасывается без ожидания и учитывается в метрике")
+    void fullBufferDropsRecords() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AuditLogWriter bounded = new AuditLogWriter(2, registry);
+        AuditRecord record = new AuditRecord(null, "list-tasks", 1, Map.of(), null, null);
+
+        assertTrue(bounded.submit(record));
+        assertTrue(bounded.submit(record));
+        assertFalse(bounded.submit(record));
+
+        assertEquals(1.0, registry.counter("audit.records", "result", "dropped").count());
+        assertEquals(2.0, registry.get("audit.buffer.size").gauge().value());
+    }
+
+    @Test
+    @DisplayName("тест писателя: остановка дописывает буфер")
+    void stopDrainsBuffer() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AuditLogWriter bounded = new AuditLogWriter(1000, registry);
+        IntStream.range(0, 600).forEach(i ->
+                bounded.submit(new AuditRecord(null, "get-task", i, Map.of(), null, null)));
+
+        bounded.start();
+        bounded.stop();
+
+        assertFalse(bounded.isRunning());
+        assertEquals(600.0, registry.counter("audit.records", "result", "written").count());
+    }
+
+    static class AuditedEndpoints {
+
+        @AuditLog("get-page")
+        public TaskPageResponse page(long after, int limit) {
+            List<TaskResponse> items = LongStream.rangeClosed(after + 1, after + limit)
+                    .mapToObj(id -> new TaskResponse(id, "Задача", "Описание", 1L, TaskStatus.NEW, 0L))
+                    .toList();
+            return new TaskPageResponse(items, after + limit);
+        }
+
+        @AuditLog("list-tasks")
+        public List<Long> list(boolean fail) {
+            if (fail) {
+                throw new TaskNotFoundException(1L);
+            }
+            return List.of(1L, 2L);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.bsdev.crud_webapp.benchmark;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Общая обвязка замеров: PostgreSQL из Testcontainers или уже запущенный
+ * (-Dbenchmark.datasource.url=jdbc:postgresql://localhost:5432/postgres), Kafka и SMTP заменены моками.
+ */
+public abstract class AbstractBenchmarkTest {
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @MockBean
+    protected KafkaTemplate<String, TaskStatusChangedDto> kafkaTemplate;
+
+    @MockBean(name = "cacheInvalidationKafkaTemplate")
+    protected KafkaTemplate<String, String> cacheInvalidationKafkaTemplate;
+
+    @MockBean
+    protected KafkaAdmin kafkaAdmin;
+
+    @MockBean
+    protected JavaMailSender mailSender;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        String url = System.getProperty("benchmark.datasource.url");
+        if (url != null) {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.datasource.username", () -> System.getProperty("benchmark.datasource.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("benchmark.datasource.password", "postgres"));
+        } else {
+            if (postgres == null) {
+                postgres = new PostgreSQLContainer<>("postgres:15");
+                postgres.start();
+            }
+            registry.add("spring.datasource.url", postgres::getJdbcUrl);
+            registry.add("spring.datasource.username", postgres::getUsername);
+            registry.add("spring.datasource.password", postgres::getPassword);
+        }
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.show-sql", () -> "false");
+
+        registry.add("spring.kafka.bootstrap-servers", () -> "localhost:9");
+        registry.add("spring.kafka.listener.auto-startup", () -> "false");
+        registry.add("management.health.mail.enabled", () -> "false");
+    }
+}
@@ -0,0 +1,102 @@
+package com.bsdev.crud_webapp.benchmark;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Накапливает задержки запросов по операциям и считает перцентили.
+ * <p>
+ * Для каждого запроса хранятся два значения:
+ * <ul>
+ *     <li>latency — от запланированного момента отправки до ответа. Если клиент или сервер не успевают,
+ *     запрос уходит позже плана, и это ожидание попадает в задержку (поправка на coordinated omission);</li>
+ *     <li>service time — от фактической отправки до ответа, то, что измерил бы наивный замкнутый клиент.</li>
+ * </ul>
+ */
+final class LatencyRecorder {
+
+    private final Map<TaskApiOperation, Samples> samples = new EnumMap<>(TaskApiOperation.class);
+
+    LatencyRecorder() {
+        for (TaskApiOperation operation : TaskApiOperation.values()) {
+            samples.put(operation, new Samples());
+        }
+    }
+
+    void record(TaskApiOperation operation, long latencyNanos, long serviceTimeNanos, boolean error) {
+        samples.get(operation).add(latencyNanos, serviceTimeNanos, error);
+    }
+
+    Map<String, OperationStats> operations() {
+        Map<String, OperationStats> result = new LinkedHashMap<>();
+        samples.forEach((operation, s) -> {
+            if (s.count > 0) {
+                result.put(operation.name().toLowerCase(), s.stats());
+            }
+        });
+        return result;
+    }
+
+    OperationStats total() {
+        Samples all = new Samples();
+        samples.values().forEach(all::addAll);
+        return all.stats();
+    }
+
+    record OperationStats(long count, long errors, Percentiles latencyMs, Percentiles serviceTimeMs) { }
+
+    record Percentiles(double p50, double p95, double p99, double max) {
+
+        static Percentiles of(long[] values, int count) {
+            if (count == 0) {
+                return new Percentiles(0, 0, 0, 0);
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return new Percentiles(at(sorted, 0.50), at(sorted, 0.95), at(sorted, 0.99), toMillis(sorted[count - 1]));
+        }
+
+        private static double at(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return toMillis(sorted[Math.max(index, 0)]);
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private long[] serviceTimes = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void add(long latencyNanos, long serviceTimeNanos, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+                serviceTimes = Arrays.copyOf(serviceTimes, count * 2);
+            }
+            latencies[count] = latencyNanos;
+            serviceTimes[count] = serviceTimeNanos;
+            count++;
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Samples other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.latencies[i], other.serviceTimes[i], false);
+            }
+            errors += other.errors;
+        }
+
+        synchronized OperationStats stats() {
+            return new OperationStats(count, errors,
+                    Percentiles.of(latencies, count), Percentiles.of(serviceTimes, count));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bsdev.crud_webapp.benchmark;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Параметры нагрузочного прогона, читаются из системных свойств {@code load.*}.
+ *
+ * @param rate        целевая интенсивность, запросов в секунду (открытая модель: не зависит от времени ответа)
+ * @param mix         веса операций, например {@code create=20,get=50,update=15,delete=5,list=10}
+ * @param clients     число потоков-клиентов, одновременно держащих HTTP-запрос
+ * @param seedTasks   число задач, создаваемых до прогона для get/update/list
+ */
+record LoadSettings(
+        int rate,
+        int warmupSeconds,
+        int durationSeconds,
+        Map<TaskApiOperation, Integer> mix,
+        int clients,
+        int seedTasks,
+        int listLimit,
+        int requestTimeoutMs,
+        Path output
+) {
+
+    static final String DEFAULT_MIX = "create=20,get=50,update=15,delete=5,list=10";
+
+    static LoadSettings fromSystemProperties() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return new LoadSettings(
+                Integer.getInteger("load.rate", 200),
+                Integer.getInteger("load.warmup-seconds", 10),
+                Integer.getInteger("load.duration-seconds", 30),
+                parseMix(System.getProperty("load.mix", DEFAULT_MIX)),
+                Integer.getInteger("load.clients", 64),
+                Integer.getInteger("load.seed-tasks", 10_000),
+                Integer.getInteger("load.list-limit", 100),
+                Integer.getInteger("load.request-timeout-ms", 10_000),
+                Path.of(System.getProperty("load.output", "target/load-test/tasks-api-" + timestamp + ".json"))
+        );
+    }
+
+    static Map<TaskApiOperation, Integer> parseMix(String mix) {
+        Map<TaskApiOperation, Integer> weights = new EnumMap<>(TaskApiOperation.class);
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Некорректный элемент load.mix: " + entry);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(TaskApiOperation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("В load.mix нет ни одной операции с положительным весом: " + mix);
+        }
+        return weights;
+    }
+
+    TaskApiOperation nextOperation() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int point = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<TaskApiOperation, Integer> entry : mix.entrySet()) {
+            point -= entry.getValue();
+            if (point < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Недостижимо: вес операции не найден");
+    }
+}
@@ -0,0 +1,222 @@
+package com.bsdev.crud_webapp.benchmark;
+
+import com.bsdev.crud_webapp.dto.TaskRequest;
+import com.bsdev.crud_webapp.dto.TaskResponse;
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.service.TaskService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Нагрузочный прогон REST API задач по HTTP с открытой моделью нагрузки.
+ * <p>
+ * Приложение поднимается целиком на случайном порту. База — PostgreSQL из Testcontainers
+ * или уже запущенный локальный PostgreSQL (-Dbenchmark.datasource.url=...). Kafka и SMTP заменены моками,
+ * поэтому замер показывает стоимость HTTP, сервиса, кэша и БД.
+ * <p>
+ * Запуск: mvn test -Dtest=TaskApiLoadBenchmark -Dbenchmark=true [-Dload.rate=500 -Dload.mix=get=80,list=20 ...]
+ * Все параметры описаны в {@link LoadSettings}. Результат пишется в JSON (load.output).
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TaskApiLoadBenchmark extends AbstractBenchmarkTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LoadSettings settings = LoadSettings.fromSystemProperties();
+
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    private HttpClient httpClient;
+
+    private long[] seededIds;
+
+    @BeforeEach
+    void setUp() {
+        when(kafkaTemplate.sendDefault(anyString(), any())).thenAnswer(invocation -> {
+            SettableListenableFuture<SendResult<String, TaskStatusChangedDto>> future = new SettableListenableFuture<>();
+            future.set(null);
+            return future;
+        });
+
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(settings.requestTimeoutMs()))
+                .build();
+
+        List<TaskRequest> seed = IntStream.range(0, settings.seedTasks())
+                .mapToObj(i -> new TaskRequest("Задача " + i, "Описание " + i, i % 100, TaskStatus.NEW))
+                .toList();
+        seededIds = taskService.createTasks(seed).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Test
+    @DisplayName("нагрузка: смесь create/get/update/delete/list с заданной интенсивностью, перцентили задержек")
+    void tasksApiUnderLoad() throws Exception {
+        log.info("Прогрев: {} с при {} запросов/с", settings.warmupSeconds(), settings.rate());
+        run(settings.warmupSeconds(), new LatencyRecorder());
+
+        log.info("Замер: {} с при {} запросов/с, смесь {}", settings.durationSeconds(), settings.rate(), settings.mix());
+        Instant startedAt = Instant.now();
+        LatencyRecorder recorder = new LatencyRecorder();
+        double elapsedSeconds = run(settings.durationSeconds(), recorder);
+
+        LatencyRecorder.OperationStats total = recorder.total();
+        LoadReport report = new LoadReport(startedAt, settings.rate(), settings.durationSeconds(),
+                settings.mix(), settings.clients(), settings.seedTasks(),
+                elapsedSeconds, total.count() / elapsedSeconds, total, recorder.operations());
+
+        Files.createDirectories(settings.output().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(settings.output().toFile(), report);
+
+        report.operations().forEach((operation, stats) -> log.info(
+                "{}: count={} errors={} p50={} p95={} p99={} max={} ms (service time p99={} ms)",
+                operation, stats.count(), stats.errors(), stats.latencyMs().p50(), stats.latencyMs().p95(),
+                stats.latencyMs().p99(), stats.latencyMs().max(), stats.serviceTimeMs().p99()));
+        log.info("total: {} req/s, p50={} p95={} p99={} max={} ms, результат: {}",
+                Math.round(report.throughput()), total.latencyMs().p50(), total.latencyMs().p95(),
+                total.latencyMs().p99(), total.latencyMs().max(), settings.output().toAbsolutePath());
+
+        assertEquals(0, total.errors());
+    }
+
+    /**
+     * Запросы планируются на моменты start + i * interval независимо от того, успел ли ответить предыдущий.
+     * Задержка считается от запланированного момента, поэтому очередь к клиентам и серверу не теряется.
+     *
+     * @return время от начала до последнего ответа, секунды
+     */
+    private double run(int seconds, LatencyRecorder recorder) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(settings.clients());
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            TaskApiOperation operation = settings.nextOperation();
+            clients.execute(() -> execute(operation, intended, recorder));
+        }
+        clients.shutdown();
+        clients.awaitTermination(settings.requestTimeoutMs() + 60_000L, TimeUnit.MILLISECONDS);
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private void execute(TaskApiOperation planned, long intended, LatencyRecorder recorder) {
+        Long deleteId = planned == TaskApiOperation.DELETE ? createdIds.poll() : null;
+        TaskApiOperation operation = planned == TaskApiOperation.DELETE && deleteId == null
+                ? TaskApiOperation.CREATE
+                : planned;
+        long sent = System.nanoTime();
+        boolean error;
+        try {
+            error = send(operation, deleteId);
+        } catch (Exception e) {
+            log.warn("Ошибка запроса {}: {}", operation, e.toString());
+            error = true;
+        }
+        long done = System.nanoTime();
+        recorder.record(operation, done - intended, done - sent, error);
+    }
+
+    /**
+     * Удаляются только задачи, созданные во время прогона; пока их нет, DELETE заменяется на CREATE.
+     *
+     * @return true, если ответ не 2xx
+     */
+    private boolean send(TaskApiOperation operation, Long deleteId) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long seededId = seededIds[random.nextInt(seededIds.length)];
+        HttpRequest request = switch (operation) {
+            case CREATE -> request("/tasks")
+                    .POST(json(new TaskRequest("Нагрузка", "Создана в нагрузочном тесте", random.nextLong(100), TaskStatus.NEW)))
+                    .build();
+            case GET -> request("/tasks/" + seededId).GET().build();
+            case UPDATE -> request("/tasks/" + seededId)
+                    .PUT(json(new TaskRequest("Задача " + seededId, "Обновлена в нагрузочном тесте", seededId % 100,
+                            TaskStatus.values()[random.nextInt(TaskStatus.values().length)])))
+                    .build();
+            case DELETE -> request("/tasks/" + deleteId).DELETE().build();
+            case LIST -> request("/tasks?after=" + seededId + "&limit=" + settings.listLimit()).GET().build();
+        };
+
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        boolean ok = response.statusCode() / 100 == 2;
+        if (ok && operation == TaskApiOperation.CREATE) {
+            createdIds.add(objectMapper.readValue(response.body(), TaskResponse.class).id());
+        }
+        return !ok;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofMillis(settings.requestTimeoutMs()))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    record LoadReport(
+            Instant startedAt,
+            int targetRate,
+            int durationSeconds,
+            Map<TaskApiOperation, Integer> mix,
+            int clients,
+            int seedTasks,
+            double elapsedSeconds,
+            double throughput,
+            LatencyRecorder.OperationStats total,
+            Map<String, LatencyRecorder.OperationStats> operations
+    ) { }
+}
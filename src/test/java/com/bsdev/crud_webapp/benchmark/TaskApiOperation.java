@@ -0,0 +1,12 @@
+package com.bsdev.crud_webapp.benchmark;
+
+/**
+ * Операции REST API задач, из которых собирается нагрузочный профиль.
+ */
+enum TaskApiOperation {
+    CREATE,
+    GET,
+    UPDATE,
+    DELETE,
+    LIST
+}
@@ -0,0 +1,69 @@
+package com.bsdev.crud_webapp.benchmark;
+
+import com.bsdev.crud_webapp.AbstractContainerBaseTest;
+import com.bsdev.crud_webapp.dto.TaskRequest;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.repository.TaskRepository;
+import com.bsdev.crud_webapp.service.TaskService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение построчного создания задач (createTask) с пакетным (createTasks).
+ * Запуск: mvn test -Dtest=TaskBatchInsertBenchmark -Dbenchmark=true
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TaskBatchInsertBenchmark extends AbstractContainerBaseTest {
+
+    private static final int ROWS = 5_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("замер: построчное создание задач против пакетного POST /tasks/batch")
+    void singleRowVersusBatch() {
+        List<TaskRequest> requests = IntStream.range(0, ROWS)
+                .mapToObj(i -> new TaskRequest("Задача " + i, "Описание " + i, i % 100, TaskStatus.NEW))
+                .toList();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            requests.forEach(taskService::createTask);
+            long singleMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            List<Long> ids = taskService.createTasks(requests);
+            long batchMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(ROWS, ids.size());
+            log.info("round={} rows={} single-row: {} ms ({} rows/s), batch: {} ms ({} rows/s)",
+                    round, ROWS, singleMs, ROWS * 1000L / Math.max(singleMs, 1),
+                    batchMs, ROWS * 1000L / Math.max(batchMs, 1));
+        }
+        assertEquals(2L * ROWS * ROUNDS, taskRepository.count());
+    }
+}
@@ -0,0 +1,198 @@
+package com.bsdev.crud_webapp.benchmark;
+
+import com.bsdev.crud_webapp.dto.TaskRequest;
+import com.bsdev.crud_webapp.dto.TaskResponse;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.service.TaskService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Замер GET /tasks/search на сгенерированном корпусе (по умолчанию 1 000 000 задач).
+ * <p>
+ * Корпус детерминирован (фиксированный seed): частоты слов распределены по Ципфу, поэтому в одном прогоне
+ * есть запросы по очень частому слову, по слову средней частоты, по редкому артикулу и по фразе.
+ * Для сравнения те же слова ищутся через ILIKE без индекса. Ранжируются все совпадения, поэтому время поиска
+ * растёт с matches. Корпус создаётся через {@link TaskService#createTasks} и переиспользуется следующими прогонами,
+ * если уже лежит в базе.
+ * <p>
+ * Запуск: mvn test -Dtest=TaskSearchBenchmark -Dbenchmark=true [-Dsearch.corpus-size=1000000
+ * -Dsearch.iterations=200 -Dbenchmark.datasource.url=jdbc:postgresql://localhost:5432/postgres]
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TaskSearchBenchmark extends AbstractBenchmarkTest {
+
+    /**
+     * Все задачи корпуса принадлежат этому пользователю, по нему корпус находится при повторном запуске.
+     */
+    private static final long CORPUS_USER_ID = 900_000_001L;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int RESULT_LIMIT = 20;
+    private static final int BASELINE_ITERATIONS = 5;
+    private static final int ARTICLES = 100_000;
+
+    private static final String[] WORDS = {
+            "задача", "отчёт", "клиент", "проверить", "исправить", "договор", "встреча", "счёт", "сервер", "релиз",
+            "документ", "оплата", "заказ", "доставка", "склад", "поставщик", "бюджет", "презентация", "звонок",
+            "письмо", "аналитика", "интеграция", "тестирование", "дизайн", "макет", "миграция", "резервный",
+            "мониторинг", "обучение", "отпуск", "собеседование", "ремонт", "закупка", "лицензия", "аудит",
+            "инвентаризация", "командировка", "сертификат", "страховка", "претензия", "report", "deploy",
+            "invoice", "backup", "review", "release", "budget", "meeting", "database", "kafka"
+    };
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final int corpusSize = Integer.getInteger("search.corpus-size", 1_000_000);
+    private final int iterations = Integer.getInteger("search.iterations", 200);
+
+    @BeforeEach
+    void setUp() {
+        Long existing = jdbcTemplate.queryForObject("SELECT count(*) FROM tasks WHERE user_id = ?", Long.class,
+                CORPUS_USER_ID);
+        if (existing != null && existing == corpusSize) {
+            log.info("corpus: reusing {} tasks", existing);
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM tasks WHERE user_id = ?", CORPUS_USER_ID);
+
+        Random random = new Random(42);
+        ZipfSampler sampler = new ZipfSampler(WORDS.length, 1.0);
+        long start = System.nanoTime();
+        for (int from = 0; from < corpusSize; from += INSERT_BATCH) {
+            List<TaskRequest> batch = IntStream.range(from, Math.min(from + INSERT_BATCH, corpusSize))
+                    .mapToObj(i -> new TaskRequest(
+                            sentence(random, sampler, 3),
+                            sentence(random, sampler, 8) + " артикул" + random.nextInt(ARTICLES),
+                            CORPUS_USER_ID,
+                            TaskStatus.NEW))
+                    .toList();
+            taskService.createTasks(batch);
+        }
+        jdbcTemplate.execute("ANALYZE tasks");
+        log.info("corpus: generated {} tasks in {} s", corpusSize, (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    @Test
+    @DisplayName("замер: полнотекстовый поиск по GIN-индексу против ILIKE на корпусе из 1M задач")
+    void searchLatencyOnLargeCorpus() {
+        List<String> report = new ArrayList<>();
+        report.add("corpus=" + corpusSize + " limit=" + RESULT_LIMIT);
+        report.add(measure("frequent", WORDS[0], true));
+        report.add(measure("medium", WORDS[25], true));
+        report.add(measure("rare", "артикул" + 4242, true));
+        report.add(measure("two words", WORDS[1] + " " + WORDS[30], false));
+        report.add(measure("phrase", "\"" + WORDS[0] + " " + WORDS[1] + "\"", false));
+        report.add(measure("no match", "несуществующееслово", true));
+        report.forEach(log::info);
+    }
+
+    private String measure(String name, String query, boolean withBaseline) {
+        Long matches = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM tasks WHERE search_vector @@ websearch_to_tsquery('russian', ?)", Long.class, query);
+        List<TaskResponse> first = taskService.searchTasks(query, RESULT_LIMIT);
+        if (matches != null && matches > 0) {
+            assertFalse(first.isEmpty(), "Поиск должен находить задачи по запросу " + query);
+        } else {
+            assertEquals(List.of(), first);
+        }
+
+        LatencySummary search = LatencySummary.of(iterations, () -> taskService.searchTasks(query, RESULT_LIMIT));
+        String line = String.format("%-10s q=%-28s matches=%-7d search: %s", name, query, matches, search);
+        if (withBaseline) {
+            String pattern = "%" + query + "%";
+            LatencySummary baseline = LatencySummary.of(BASELINE_ITERATIONS, () -> jdbcTemplate.queryForList(
+                    "SELECT id FROM tasks WHERE title ILIKE ? OR description ILIKE ? LIMIT " + RESULT_LIMIT,
+                    Long.class, pattern, pattern));
+            line += " | ILIKE: " + baseline;
+        }
+        return line;
+    }
+
+    private static String sentence(Random random, ZipfSampler sampler, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[sampler.next(random)]);
+        }
+        return sentence.toString();
+    }
+
+    /**
+     * Индексы слов с вероятностью, убывающей как 1 / rank^exponent.
+     */
+    private static final class ZipfSampler {
+
+        private final double[] cumulative;
+
+        private ZipfSampler(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        private int next(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+
+    private record LatencySummary(double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+
+        static LatencySummary of(int iterations, Supplier<?> call) {
+            for (int i = 0; i < Math.min(iterations, 10); i++) {
+                call.get();
+            }
+            long[] nanos = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                call.get();
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            return new LatencySummary(percentile(nanos, 0.50), percentile(nanos, 0.95),
+                    percentile(nanos, 0.99), nanos[nanos.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50=%.2f ms p95=%.2f ms p99=%.2f ms max=%.2f ms", p50Ms, p95Ms, p99Ms, maxMs);
+        }
+    }
+}
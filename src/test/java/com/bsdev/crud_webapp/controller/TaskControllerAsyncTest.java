@@ -0,0 +1,164 @@
+package com.bsdev.crud_webapp.controller;
+
+import com.bsdev.crud_webapp.config.AsyncWebConfig;
+import com.bsdev.crud_webapp.dto.TaskRequest;
+import com.bsdev.crud_webapp.dto.TaskResponse;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.exception.TaskNotFoundException;
+import com.bsdev.crud_webapp.service.TaskExportService;
+import com.bsdev.crud_webapp.service.TaskService;
+import com.bsdev.crud_webapp.service.TaskStatsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = TaskController.class, properties = {
+        "tasks.async.enabled=true",
+        "tasks.async.pool-size=1",
+        "tasks.async.queue-capacity=0",
+        "tasks.async.timeout=500ms"
+})
+@Import({AsyncWebConfig.class, SimpleMeterRegistry.class})
+public class TaskControllerAsyncTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private TaskService taskService;
+
+    @MockBean
+    private TaskExportService taskExportService;
+
+    @MockBean
+    private TaskStatsService taskStatsService;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("асинхронный режим: обработчик выполняется в пуле БД, ответ и ETag формируются как обычно")
+    void getTaskRunsOnDbExecutor() throws Exception {
+        when(taskService.findTaskByIdOrThrow(1L)).thenAnswer(invocation -> {
+            assertTrue(Thread.currentThread().getName().startsWith("db-"), "Вызов должен уйти в пул dbExecutor");
+            return new TaskResponse(1L, "Задача", "Описание", 2L, TaskStatus.NEW, 3L);
+        });
+
+        MvcResult result = mockMvc.perform(get("/tasks/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.title").value("Задача"));
+    }
+
+    @Test
+    @DisplayName("асинхронный режим: исключения с @ResponseStatus отдают свой статус")
+    void getTaskNotFoundKeepsStatus() throws Exception {
+        when(taskService.findTaskByIdOrThrow(2L)).thenThrow(new TaskNotFoundException(2L));
+
+        MvcResult result = mockMvc.perform(get("/tasks/{id}", 2L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("асинхронный режим: пул и очередь заняты — сразу 503, запрос не ждёт")
+    void saturatedExecutorFailsFast() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(taskService.findTaskByIdOrThrow(3L)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new TaskResponse(3L, "Задача", "Описание", 2L, TaskStatus.NEW, 0L);
+        });
+
+        mockMvc.perform(get("/tasks/{id}", 3L)).andExpect(request().asyncStarted());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        mockMvc.perform(get("/tasks/{id}", 4L))
+                .andExpect(status().isServiceUnavailable());
+        assertEquals(1.0, meterRegistry.counter("tasks.async.rejected").count());
+    }
+
+    @Test
+    @DisplayName("асинхронный режим: не уложились в timeout — 503 (MockMvc сам таймаут не запускает)")
+    void slowCallTimesOut() throws Exception {
+        when(taskService.findTaskByIdOrThrow(5L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new TaskResponse(5L, "Задача", "Описание", 2L, TaskStatus.NEW, 0L);
+        });
+
+        MvcResult result = mockMvc.perform(get("/tasks/{id}", 5L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("асинхронный режим: начатое создание не обрывается по timeout и отдаёт свой ответ")
+    void startedWriteIsNotTimedOut() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(taskService.createTask(any(TaskRequest.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new TaskResponse(6L, "Задача", "Описание", 2L, TaskStatus.NEW, 0L);
+        });
+
+        MvcResult result = mockMvc.perform(post("/tasks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Задача\",\"description\":\"Описание\",\"userId\":2}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(0L, result.getRequest().getAsyncContext().getTimeout(), "У записи не должно быть таймаута запроса");
+
+        release.countDown();
+        result.getAsyncResult(5000);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(6));
+    }
+}
@@ -5,6 +5,7 @@ import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
 import com.bsdev.crud_webapp.entity.Task;
 import com.bsdev.crud_webapp.entity.TaskStatus;
 import com.bsdev.crud_webapp.repository.TaskRepository;
+import com.jayway.jsonpath.JsonPath;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.test.utils.KafkaTestUtils;
@@ -101,6 +103,44 @@ public class TaskControllerTest extends AbstractContainerBaseTest {
                 .andExpect(jsonPath("$.id").value(savedId));
     }
 
+    @Test
+    @DisplayName("покрывает сценарий GET /tasks/{id} с If-None-Match: неизменившаяся задача отдаётся как 304 без тела")
+    void getTaskNotModifiedByETag() throws Exception {
+        long savedId = createTestTask();
+        String eTag = mockMvc.perform(get("/tasks/{id}", savedId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/tasks/{id}", savedId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("покрывает сценарий PUT и DELETE /tasks/{id} с устаревшим If-Match: ответ 412, задача не меняется")
+    void updateAndDeleteWithStaleIfMatch() throws Exception {
+        long savedId = createTestTask();
+        String json = """
+            {"title": "Новая", "description": "Новая", "userId": 1, "status": "NEW"}
+            """;
+
+        mockMvc.perform(put("/tasks/{id}", savedId).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        mockMvc.perform(put("/tasks/{id}", savedId).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/tasks/{id}", savedId).header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals(1L, repository.findById(savedId).orElseThrow().getVersion());
+    }
+
     @Test
     @DisplayName("покрывает негативный сценарий вызова метода GET /tasks/{id} при отсутствии задачи")
     void getTaskNotFound() throws Exception {
@@ -129,6 +169,7 @@ public class TaskControllerTest extends AbstractContainerBaseTest {
                 .andExpect(content().string(""));
 
         var record = KafkaTestUtils.getSingleRecord(kafkaConsumer, "tasks_status_changed");
+        assertEquals(String.valueOf(savedId), record.key(), "Событие должно быть с ключом id задачи");
         var dto = record.value();
         assertEquals(savedId, dto.taskId());
         assertEquals(TaskStatus.DONE, dto.status());
@@ -141,6 +182,25 @@ public class TaskControllerTest extends AbstractContainerBaseTest {
         assertEquals(TaskStatus.DONE, updated.getStatus(), "Status должен обновиться на DONE");
     }
 
+    @Test
+    @DisplayName("покрывает сценарий PATCH /tasks/{id}: меняется только статус, событие уходит в Kafka")
+    void patchTaskChangesOnlyStatus() throws Exception {
+        long savedId = createTestTask();
+
+        mockMvc.perform(patch("/tasks/{id}", savedId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"DONE\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        var record = KafkaTestUtils.getSingleRecord(kafkaConsumer, "tasks_status_changed");
+        assertEquals(TaskStatus.DONE, record.value().status());
+
+        Task updated = repository.findById(savedId).orElseThrow();
+        assertEquals("Init", updated.getTitle(), "Непереданные поля не меняются");
+        assertEquals(TaskStatus.DONE, updated.getStatus());
+    }
+
     @Test
     @DisplayName("покрывает позитивный сценарий вызова метода DELETE /tasks/{id} для удаления задачи")
     void deleteTaskEndpoint() throws Exception {
@@ -151,11 +211,193 @@ public class TaskControllerTest extends AbstractContainerBaseTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("покрывает сценарий массового удаления DELETE /tasks?ids=: возвращаются id удалённых задач")
+    void deleteTasksByIds() throws Exception {
+        long savedId = createTestTask();
+
+        mockMvc.perform(delete("/tasks").param("ids", savedId + ",999999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value(savedId));
+
+        assertEquals(false, repository.existsById(savedId));
+    }
+
+    @Test
+    @DisplayName("покрывает сценарий POST /tasks/status: меняются и попадают в Kafka только задачи не в целевом статусе")
+    void transitionStatusPublishesOnlyChanged() throws Exception {
+        long changedId = createTestTask();
+        long doneId = repository.save(Task.builder()
+                .title("Done")
+                .description("Done")
+                .userId(1L)
+                .status(TaskStatus.DONE)
+                .build()).getId();
+
+        mockMvc.perform(post("/tasks/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [" + changedId + ", " + doneId + ", 999999], \"status\": \"DONE\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value(changedId));
+
+        var record = KafkaTestUtils.getSingleRecord(kafkaConsumer, "tasks_status_changed");
+        assertEquals(changedId, record.value().taskId());
+        assertEquals(TaskStatus.DONE, repository.findById(changedId).orElseThrow().getStatus());
+        assertEquals(0L, repository.findById(doneId).orElseThrow().getVersion(), "Задача в целевом статусе не меняется");
+
+        mockMvc.perform(post("/tasks/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [" + changedId + "]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("покрывает сценарий GET /tasks/search: индекс поиска следует за созданием и обновлением задачи")
+    void searchTasksFollowsInsertAndUpdate() throws Exception {
+        String created = mockMvc.perform(post("/tasks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"title": "Починить сервер", "description": "Сервер не отвечает", "userId": 1, "status": "NEW"}
+                            """))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = JsonPath.<Number>read(created, "$.id").longValue();
+
+        mockMvc.perform(get("/tasks/search").param("q", "серверы"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(id));
+
+        mockMvc.perform(put("/tasks/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"title": "Подготовить отчёт", "description": "Квартальный", "userId": 1, "status": "NEW"}
+                            """))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/tasks/search").param("q", "сервер"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/tasks/search").param("q", "отчёты"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(id));
+    }
+
+    @Test
+    @DisplayName("покрывает сценарий GET /tasks/stats: счётчики следуют за созданием, сменой статуса и удалением")
+    void getTaskStatsFollowsWrites() throws Exception {
+        String json = """
+            [
+              {"title": "Стат 1", "description": "Стат", "userId": 9101, "status": "NEW"},
+              {"title": "Стат 2", "description": "Стат", "userId": 9101, "status": "NEW"},
+              {"title": "Стат 3", "description": "Стат", "userId": 9101, "status": "IN_PROGRESS"}
+            ]
+            """;
+        String ids = mockMvc.perform(post("/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long first = JsonPath.<Number>read(ids, "$[0]").longValue();
+        long second = JsonPath.<Number>read(ids, "$[1]").longValue();
+
+        mockMvc.perform(patch("/tasks/{id}", first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"DONE\"}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/tasks/{id}", second))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/tasks/stats").param("userId", "9101"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byUser.9101.NEW").value(0))
+                .andExpect(jsonPath("$.byUser.9101.IN_PROGRESS").value(1))
+                .andExpect(jsonPath("$.byUser.9101.DONE").value(1))
+                .andExpect(jsonPath("$.total.DONE").isNumber());
+        mockMvc.perform(get("/tasks/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total.IN_PROGRESS").isNumber())
+                .andExpect(jsonPath("$.byUser").isEmpty());
+    }
+
     @Test
     @DisplayName("покрывает сценарий вызова метода GET /tasks для получения списка всех задач")
     void getAllTasksEndpoint() throws Exception {
         mockMvc.perform(get("/tasks"))
                 .andExpect(status().isOk())
-                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.items").isArray());
+    }
+
+    @Test
+    @DisplayName("покрывает сценарий постраничного чтения GET /tasks?after=&limit= по курсору next")
+    void getTasksPageByCursor() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            repository.save(Task.builder()
+                    .title("Page " + i)
+                    .description("Page")
+                    .userId(1L)
+                    .status(TaskStatus.NEW)
+                    .build());
+        }
+
+        mockMvc.perform(get("/tasks").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.next").isNumber());
+
+        long lastId = repository.findAll().stream().mapToLong(Task::getId).max().orElseThrow();
+        mockMvc.perform(get("/tasks").param("after", String.valueOf(lastId - 1)).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("покрывает сценарий фильтрации GET /tasks?userId=&status= вместе с курсором")
+    void getTasksFilteredByUserAndStatus() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            repository.save(Task.builder()
+                    .title("Фильтр " + i)
+                    .description("Фильтр")
+                    .userId(i % 2 == 0 ? 77L : 78L)
+                    .status(i < 4 ? TaskStatus.DONE : TaskStatus.NEW)
+                    .build());
+        }
+
+        mockMvc.perform(get("/tasks").param("userId", "77").param("status", "DONE").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].userId").value(77))
+                .andExpect(jsonPath("$.items[0].status").value("DONE"))
+                .andExpect(jsonPath("$.next").isNumber());
+
+        mockMvc.perform(get("/tasks").param("status", "NEW"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2));
+    }
+
+    @Test
+    @DisplayName("покрывает сценарий потоковой выгрузки GET /tasks/export в формате NDJSON")
+    void exportTasksAsNdjson() throws Exception {
+        createTestTask();
+        repository.save(Task.builder()
+                .title("Export")
+                .description("Export")
+                .userId(2L)
+                .status(TaskStatus.DONE)
+                .build());
+
+        String body = mockMvc.perform(get("/tasks/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(TaskController.APPLICATION_NDJSON_VALUE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length, "Каждая задача выгружается отдельной строкой");
     }
 }
@@ -0,0 +1,66 @@
+package com.bsdev.crud_webapp.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.Cookie;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    @DisplayName("read-your-writes: изменяющий запрос выполняется на основной базе и выставляет cookie с концом окна")
+    void writeSetsCookieAndPins() throws Exception {
+        AtomicBoolean pinned = new AtomicBoolean();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long before = System.currentTimeMillis();
+
+        filter.doFilter(new MockHttpServletRequest("PUT", "/tasks/1"), response, chain(pinned));
+
+        assertTrue(pinned.get());
+        assertFalse(PrimaryPin.isPinned());
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+        assertEquals(5, cookie.getMaxAge());
+        assertTrue(Long.parseLong(cookie.getValue()) >= before + 5000);
+    }
+
+    @Test
+    @DisplayName("read-your-writes: чтение в пределах окна идёт в основную базу, после окна и без cookie — в реплику")
+    void readIsPinnedOnlyWithinWindow() throws Exception {
+        AtomicBoolean pinned = new AtomicBoolean();
+        long now = System.currentTimeMillis();
+
+        filter.doFilter(read(Long.toString(now + 5000)), new MockHttpServletResponse(), chain(pinned));
+        assertTrue(pinned.get());
+
+        filter.doFilter(read(Long.toString(now - 1)), new MockHttpServletResponse(), chain(pinned));
+        assertFalse(pinned.get());
+
+        filter.doFilter(read("мусор"), new MockHttpServletResponse(), chain(pinned));
+        assertFalse(pinned.get());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks/1"), response, chain(pinned));
+        assertFalse(pinned.get());
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE));
+    }
+
+    private static MockHttpServletRequest read(String pinnedUntil) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, pinnedUntil));
+        return request;
+    }
+
+    private static FilterChain chain(AtomicBoolean pinned) {
+        return (request, response) -> pinned.set(PrimaryPin.isPinned());
+    }
+}
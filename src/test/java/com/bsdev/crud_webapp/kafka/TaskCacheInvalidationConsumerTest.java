@@ -0,0 +1,43 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.cache.TaskCache;
+import com.bsdev.crud_webapp.cache.TaskCacheInvalidationPublisher;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskCacheInvalidationConsumerTest {
+
+    @Mock
+    private TaskCache taskCache;
+
+    @Mock
+    private TaskCacheInvalidationPublisher publisher;
+
+    @InjectMocks
+    private TaskCacheInvalidationConsumer consumer;
+
+    @Test
+    @DisplayName("тест инвалидации: вытесняются задачи из сообщений других узлов, свои сообщения пропускаются")
+    void listenEvictsOnlyForeignInvalidations() {
+        when(publisher.getNodeId()).thenReturn("node-a");
+
+        consumer.listen(List.of(
+                new ConsumerRecord<>("tasks_cache_invalidation", 0, 0L, "1", "node-a"),
+                new ConsumerRecord<>("tasks_cache_invalidation", 0, 1L, "2", "node-b")));
+
+        verify(taskCache).evictRemote(eq(2L), anyLong());
+        verify(taskCache, never()).evictRemote(eq(1L), anyLong());
+    }
+}
@@ -0,0 +1,62 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskStatusChangedSerializationTest {
+
+    private static final String BINARY_TOPIC = "tasks_status_changed";
+    private static final String JSON_TOPIC = "tasks_status_changed_legacy";
+
+    private final TaskStatusChangedSerializer serializer = new TaskStatusChangedSerializer(Set.of(BINARY_TOPIC));
+    private final TaskStatusChangedDeserializer deserializer = new TaskStatusChangedDeserializer();
+
+    @Test
+    @DisplayName("тест двоичного формата: 10 байт с версией, событие читается обратно")
+    void binaryRoundTrip() {
+        TaskStatusChangedDto dto = new TaskStatusChangedDto(Long.MAX_VALUE, TaskStatus.DONE);
+        RecordHeaders headers = new RecordHeaders();
+
+        byte[] payload = serializer.serialize(BINARY_TOPIC, headers, dto);
+
+        assertEquals(TaskStatusChangedBinaryFormat.SIZE, payload.length);
+        assertEquals(TaskStatusChangedBinaryFormat.VERSION, payload[0]);
+        assertFalse(headers.iterator().hasNext(), "Двоичный формат не пишет заголовки типа");
+        assertEquals(dto, deserializer.deserialize(BINARY_TOPIC, headers, payload));
+    }
+
+    @Test
+    @DisplayName("тест перехода: топик вне binary-topics пишется в JSON, а JSON и двоичные события читаются одинаково")
+    void jsonTopicAndMixedFormatsAreReadable() {
+        TaskStatusChangedDto dto = new TaskStatusChangedDto(42L, TaskStatus.IN_PROGRESS);
+
+        byte[] json = serializer.serialize(JSON_TOPIC, new RecordHeaders(), dto);
+
+        assertEquals('{', json[0]);
+        assertEquals(dto, deserializer.deserialize(JSON_TOPIC, new RecordHeaders(), json));
+        assertEquals(dto, deserializer.deserialize(JSON_TOPIC, new RecordHeaders(),
+                TaskStatusChangedBinaryFormat.write(dto)));
+        assertNull(deserializer.deserialize(BINARY_TOPIC, new RecordHeaders(), null));
+    }
+
+    @Test
+    @DisplayName("тест двоичного формата: неверная длина или статус вне TaskStatus — SerializationException")
+    void corruptedPayloadIsRejected() {
+        byte[] payload = TaskStatusChangedBinaryFormat.write(new TaskStatusChangedDto(1L, TaskStatus.NEW));
+
+        byte[] unknownStatus = payload.clone();
+        unknownStatus[TaskStatusChangedBinaryFormat.SIZE - 1] = 100;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(BINARY_TOPIC, unknownStatus));
+
+        byte[] truncated = new byte[]{TaskStatusChangedBinaryFormat.VERSION, 0, 0};
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(BINARY_TOPIC, truncated));
+    }
+}
@@ -0,0 +1,122 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.NotificationResult;
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.exception.NotificationSendException;
+import com.bsdev.crud_webapp.service.NotificationDigestService;
+import com.bsdev.crud_webapp.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskStatusConsumerTest {
+
+    private static final String TOPIC = "tasks_status_changed";
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private NotificationDigestService notificationDigestService;
+
+    @Mock
+    private TaskStatusRetryRouter retryRouter;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private TaskStatusConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new TaskStatusConsumer(notificationService, notificationDigestService, retryRouter,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("тест повторов: неотправленное письмо уходит на уровень повторов, пачка подтверждается целиком")
+    void failedRecordIsRoutedAndBatchIsAcknowledged() {
+        List<ConsumerRecord<String, TaskStatusChangedDto>> records = records(10);
+        failOnFirstAttempt(8L);
+
+        consumer.listen(records, ack);
+
+        verify(retryRouter).route(eq(records.get(8)), isA(NotificationSendException.class));
+        verifyNoMoreInteractions(retryRouter);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @DisplayName("тест повторов: публикация на повтор не удалась — индекс записи, остаток не отправляется повторно")
+    void routingFailureReportsIndexAndSentRecordsAreNotResent() {
+        List<ConsumerRecord<String, TaskStatusChangedDto>> records = records(10);
+        failOnFirstAttempt(8L);
+        doThrow(new KafkaException("брокер недоступен")).when(retryRouter).route(eq(records.get(8)), any());
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> consumer.listen(records, ack));
+        assertEquals(8, e.getIndex());
+        verify(ack, never()).acknowledge();
+
+        // DefaultErrorHandler закоммитил записи 0..7 и повторно отдаёт 8 и 9; запись 9 уже отправлена
+        consumer.listen(records.subList(8, 10), ack);
+
+        verify(notificationService).sendStatusChangedEmails(List.of(records.get(8).value()));
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @DisplayName("тест повторов: нечитаемая запись уходит на маршрутизацию, остальные письма отправляются")
+    void undeserializableRecordIsRouted() {
+        List<ConsumerRecord<String, TaskStatusChangedDto>> records = new ArrayList<>(records(3));
+        records.set(1, new ConsumerRecord<>(TOPIC, 0, 1L, "1", null));
+        when(notificationService.sendStatusChangedEmails(List.of(records.get(0).value(), records.get(2).value())))
+                .thenReturn(List.of(new NotificationResult(0L, true, null), new NotificationResult(2L, true, null)));
+
+        consumer.listen(records, ack);
+
+        verify(retryRouter).route(eq(records.get(1)), isA(SerializationException.class));
+        verify(ack).acknowledge();
+    }
+
+    private void failOnFirstAttempt(long taskId) {
+        when(notificationService.sendStatusChangedEmails(anyList())).thenAnswer(invocation -> {
+            List<TaskStatusChangedDto> dtos = invocation.getArgument(0);
+            boolean firstAttempt = dtos.size() == 10;
+            return dtos.stream()
+                    .map(dto -> firstAttempt && dto.taskId() == taskId
+                            ? new NotificationResult(dto.taskId(), false, "SMTP")
+                            : new NotificationResult(dto.taskId(), true, null))
+                    .toList();
+        });
+    }
+
+    private static List<ConsumerRecord<String, TaskStatusChangedDto>> records(int count) {
+        return LongStream.range(0, count)
+                .mapToObj(i -> new ConsumerRecord<>(TOPIC, 0, i, String.valueOf(i),
+                        new TaskStatusChangedDto(i, TaskStatus.DONE)))
+                .toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.entity.TaskStatusOutboxEvent;
+import com.bsdev.crud_webapp.repository.TaskStatusOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskStatusOutboxRelayTest {
+
+    @Mock
+    private TaskStatusOutboxRepository outboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, TaskStatusChangedDto> kafkaTemplate;
+
+    @InjectMocks
+    private TaskStatusOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1000L);
+    }
+
+    @Test
+    @DisplayName("тест отправки пачки outbox в Kafka с ключом taskId, одним flush и удалением отправленных событий")
+    void relayBatchSendsAndDeletes() {
+        List<TaskStatusOutboxEvent> events = List.of(createEvent(1L, TaskStatus.DONE), createEvent(2L, TaskStatus.NEW));
+        when(outboxRepository.tryLockRelay()).thenReturn(true);
+        when(outboxRepository.lockOldest(10)).thenReturn(events);
+        when(kafkaTemplate.sendDefault(anyString(), any())).thenAnswer(invocation -> completedFuture());
+
+        assertEquals(2, relay.relayBatch());
+
+        verify(kafkaTemplate).sendDefault("1", new TaskStatusChangedDto(1L, TaskStatus.DONE));
+        verify(kafkaTemplate).sendDefault("2", new TaskStatusChangedDto(2L, TaskStatus.NEW));
+        verify(kafkaTemplate, times(1)).flush();
+        verify(outboxRepository).deleteAllInBatch(events);
+    }
+
+    @Test
+    @DisplayName("тест ошибки отправки: события остаются в outbox для повторной отправки")
+    void relayBatchKeepsEventsOnSendFailure() {
+        when(outboxRepository.tryLockRelay()).thenReturn(true);
+        when(outboxRepository.lockOldest(10)).thenReturn(List.of(createEvent(1L, TaskStatus.DONE)));
+        SettableListenableFuture<SendResult<String, TaskStatusChangedDto>> failed = new SettableListenableFuture<>();
+        failed.setException(new IllegalStateException("broker down"));
+        when(kafkaTemplate.sendDefault(anyString(), any())).thenReturn(failed);
+
+        assertThrows(IllegalStateException.class, () -> relay.relayBatch());
+        verify(outboxRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    @DisplayName("тест одного разборщика: outbox занят другим экземпляром — пачка не читается и не отправляется")
+    void relayBatchSkipsWhenAnotherRelayHoldsLock() {
+        when(outboxRepository.tryLockRelay()).thenReturn(false);
+
+        assertEquals(0, relay.relayBatch());
+
+        verify(outboxRepository, never()).lockOldest(anyInt());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static SettableListenableFuture<SendResult<String, TaskStatusChangedDto>> completedFuture() {
+        SettableListenableFuture<SendResult<String, TaskStatusChangedDto>> future = new SettableListenableFuture<>();
+        future.set(null);
+        return future;
+    }
+
+    private static TaskStatusOutboxEvent createEvent(long taskId, TaskStatus status) {
+        return TaskStatusOutboxEvent.builder()
+                .taskId(taskId)
+                .status(status)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
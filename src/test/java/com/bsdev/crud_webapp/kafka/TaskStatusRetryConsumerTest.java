@@ -0,0 +1,140 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskStatusRetryConsumerTest {
+
+    private static final String TOPIC = "tasks_status_changed-retry-2";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+    private static final Duration DELAY = Duration.ofSeconds(30);
+
+    @Mock
+    private ConcurrentKafkaListenerContainerFactory<String, TaskStatusChangedDto> containerFactory;
+
+    @Mock
+    private TaskStatusRetryRouter retryRouter;
+
+    @Mock
+    private TaskStatusConsumer taskStatusConsumer;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private Consumer<?, ?> consumer;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @InjectMocks
+    private TaskStatusRetryConsumer retryConsumer;
+
+    @Test
+    @DisplayName("тест уровня повторов: готовые записи обрабатываются и коммитятся, с первой неготовой партиция ставится на паузу")
+    void notYetDueRecordsPausePartition() {
+        long now = System.currentTimeMillis();
+        List<ConsumerRecord<String, TaskStatusChangedDto>> records = List.of(
+                record(0, 0L, now - DELAY.toMillis() - 1000),
+                record(0, 1L, now - DELAY.toMillis() - 10),
+                record(0, 2L, now - 5000),
+                record(0, 3L, now));
+
+        retryConsumer.listen(records, consumer, container, DELAY);
+
+        verify(taskStatusConsumer).process(records.subList(0, 2));
+        verify(consumer).commitSync(Map.of(PARTITION_0, new OffsetAndMetadata(2L)));
+        verify(consumer).seek(PARTITION_0, 2L);
+        verify(container).pausePartition(PARTITION_0);
+        ArgumentCaptor<Instant> resumeAt = ArgumentCaptor.forClass(Instant.class);
+        verify(taskScheduler).schedule(any(Runnable.class), resumeAt.capture());
+        assertEquals(now - 5000 + DELAY.toMillis(), resumeAt.getValue().toEpochMilli(), "Пауза — до срока первой неготовой записи");
+    }
+
+    @Test
+    @DisplayName("тест уровня повторов: ни одна запись не готова — обработки и коммита нет, только пауза")
+    void nothingDueOnlyPauses() {
+        retryConsumer.listen(List.of(record(0, 0L, System.currentTimeMillis())), consumer, container, DELAY);
+
+        verifyNoInteractions(taskStatusConsumer);
+        verify(consumer, never()).commitSync(anyMap());
+        verify(consumer).seek(PARTITION_0, 0L);
+        verify(container).pausePartition(PARTITION_0);
+    }
+
+    @Test
+    @DisplayName("тест уровня повторов: неготовая запись одной партиции не задерживает готовые записи другой")
+    void notDueRecordInOnePartitionDoesNotHoldAnother() {
+        long now = System.currentTimeMillis();
+        long due = now - DELAY.toMillis() - 1000;
+        List<ConsumerRecord<String, TaskStatusChangedDto>> records = List.of(
+                record(0, 10L, now),
+                record(0, 11L, now),
+                record(1, 20L, due),
+                record(1, 21L, due));
+
+        retryConsumer.listen(records, consumer, container, DELAY);
+
+        verify(taskStatusConsumer).process(records.subList(2, 4));
+        verify(consumer).commitSync(Map.of(PARTITION_1, new OffsetAndMetadata(22L)));
+        verify(consumer).seek(PARTITION_0, 10L);
+        verify(consumer, never()).seek(eq(PARTITION_1), anyLong());
+        verify(container).pausePartition(PARTITION_0);
+        verify(container, never()).pausePartition(PARTITION_1);
+    }
+
+    @Test
+    @DisplayName("тест уровня повторов: не удалось передать запись дальше — её партиция читается с неё снова без паузы")
+    void routingFailureSeeksFailedPartition() {
+        long due = System.currentTimeMillis() - DELAY.toMillis() - 1000;
+        List<ConsumerRecord<String, TaskStatusChangedDto>> records = List.of(
+                record(0, 10L, due),
+                record(1, 20L, due),
+                record(1, 21L, due));
+        doThrow(new BatchListenerFailedException("брокер недоступен", 2)).when(taskStatusConsumer).process(records);
+
+        retryConsumer.listen(records, consumer, container, DELAY);
+
+        verify(consumer).commitSync(Map.of(PARTITION_0, new OffsetAndMetadata(11L), PARTITION_1, new OffsetAndMetadata(21L)));
+        verify(consumer).seek(PARTITION_1, 21L);
+        verifyNoInteractions(container, taskScheduler);
+    }
+
+    private static ConsumerRecord<String, TaskStatusChangedDto> record(int partition, long offset, long timestamp) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, timestamp, TimestampType.CREATE_TIME,
+                1, 10, String.valueOf(offset), new TaskStatusChangedDto(offset, TaskStatus.DONE), new RecordHeaders(),
+                Optional.empty());
+    }
+}
@@ -0,0 +1,110 @@
+package com.bsdev.crud_webapp.kafka;
+
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.exception.NotificationSendException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskStatusRetryRouterTest {
+
+    private static final String TOPIC = "tasks_status_changed";
+
+    @Mock
+    private KafkaOperations<String, TaskStatusChangedDto> kafkaTemplate;
+
+    @Mock
+    private KafkaOperations<String, byte[]> rawKafkaTemplate;
+
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, TaskStatusChangedDto>> captor;
+
+    private TaskStatusRetryRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new TaskStatusRetryRouter(TOPIC, List.of(Duration.ofSeconds(1), Duration.ofSeconds(30)),
+                kafkaTemplate, rawKafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("тест уровней повторов: основной топик → retry-1 → retry-2 → DLT, в заголовках причина и попытка")
+    void recordsMoveThroughTiersToDlt() {
+        SettableListenableFuture<SendResult<String, TaskStatusChangedDto>> sent = new SettableListenableFuture<>();
+        sent.set(null);
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, TaskStatusChangedDto>>any())).thenReturn(sent);
+
+        ConsumerRecord<String, TaskStatusChangedDto> record = record(TOPIC, new RecordHeaders());
+        for (String expectedTopic : List.of(TOPIC + "-retry-1", TOPIC + "-retry-2", TOPIC + "-dlt")) {
+            router.route(record, new NotificationSendException(7L, "SMTP"));
+            verify(kafkaTemplate, atLeastOnce()).send(captor.capture());
+            ProducerRecord<String, TaskStatusChangedDto> out = captor.getValue();
+            assertEquals(expectedTopic, out.topic());
+            assertEquals("7", out.key());
+            record = record(out.topic(), out.headers());
+        }
+
+        Headers headers = record.headers();
+        assertEquals(3, TaskStatusRetryRouter.attempts(record));
+        assertEquals(NotificationSendException.class.getName(),
+                new String(headers.lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN).value(), StandardCharsets.UTF_8));
+        assertEquals(1, count(headers, KafkaHeaders.DLT_EXCEPTION_MESSAGE), "Заголовки прошлых попыток заменяются");
+        assertEquals(TOPIC, new String(headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value(),
+                StandardCharsets.UTF_8), "Сохраняется исходный топик, а не уровень повтора");
+    }
+
+    @Test
+    @DisplayName("тест уровней повторов: запись без значения (ошибка десериализации) сразу уходит в DLT")
+    void unreadableRecordGoesStraightToDlt() {
+        SettableListenableFuture<SendResult<String, TaskStatusChangedDto>> sent = new SettableListenableFuture<>();
+        sent.set(null);
+        RecordHeaders headers = new RecordHeaders();
+        ConsumerRecord<String, TaskStatusChangedDto> record = record(TOPIC, headers);
+        ConsumerRecord<String, TaskStatusChangedDto> unreadable = new ConsumerRecord<>(TOPIC, 0, 5L,
+                record.timestamp(), TimestampType.CREATE_TIME, 1, 0, "7", null, headers, Optional.empty());
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, TaskStatusChangedDto>>any())).thenReturn(sent);
+
+        router.route(unreadable, new IllegalStateException("нечитаемая запись"));
+
+        verify(kafkaTemplate).send(captor.capture());
+        assertEquals(TOPIC + "-dlt", captor.getValue().topic());
+    }
+
+    private static ConsumerRecord<String, TaskStatusChangedDto> record(String topic, Headers headers) {
+        return new ConsumerRecord<>(topic, 0, 5L, System.currentTimeMillis(), TimestampType.CREATE_TIME, 1, 10, "7",
+                new TaskStatusChangedDto(7L, TaskStatus.DONE), headers, Optional.empty());
+    }
+
+    private static int count(Headers headers, String key) {
+        int count = 0;
+        for (var ignored : headers.headers(key)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bsdev.crud_webapp.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TaskRepositoryImplTest {
+
+    @Test
+    @DisplayName("тест частей IN-списка: id различны и идут по возрастанию через все части при любом порядке на входе")
+    void sortedChunksOrderIdsAcrossChunks() {
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 2500).boxed().toList());
+        Collections.shuffle(ids);
+        ids.add(7L);
+
+        List<List<Long>> chunks = TaskRepositoryImpl.sortedChunks(ids);
+
+        assertEquals(List.of(1000, 1000, 500), chunks.stream().map(List::size).toList());
+        assertEquals(LongStream.rangeClosed(1, 2500).boxed().toList(),
+                chunks.stream().flatMap(List::stream).toList());
+    }
+}
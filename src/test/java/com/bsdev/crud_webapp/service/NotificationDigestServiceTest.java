@@ -0,0 +1,181 @@
+package com.bsdev.crud_webapp.service;
+
+import com.bsdev.crud_webapp.dto.NotificationResult;
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.exception.NotificationSendException;
+import com.bsdev.crud_webapp.kafka.TaskStatusRetryRouter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDigestServiceTest {
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private TaskStatusRetryRouter retryRouter;
+
+    @Mock
+    private Acknowledgment ack;
+
+    @InjectMocks
+    private NotificationDigestService digestService;
+
+    private long offset;
+
+    @Test
+    @DisplayName("тест склейки событий: остаётся только последнее событие каждой задачи")
+    void coalesceKeepsLatestStatusPerTask() {
+        ConsumerRecord<String, TaskStatusChangedDto> done = record(1L, TaskStatus.DONE);
+        ConsumerRecord<String, TaskStatusChangedDto> created = record(2L, TaskStatus.NEW);
+
+        List<ConsumerRecord<String, TaskStatusChangedDto>> coalesced = NotificationDigestService.coalesce(List.of(
+                record(1L, TaskStatus.NEW),
+                created,
+                record(1L, TaskStatus.IN_PROGRESS),
+                done));
+
+        assertEquals(List.of(created, done), coalesced);
+    }
+
+    @Test
+    @DisplayName("тест режима сводки по пачке: одна отправка и подтверждение пачки")
+    void acceptWithoutWindowSendsDigestAndAcks() {
+        ReflectionTestUtils.setField(digestService, "windowMs", 0L);
+        when(notificationService.sendStatusDigestEmails(anyList()))
+                .thenReturn(List.of(new NotificationResult(1L, true, null)));
+
+        digestService.accept(List.of(record(1L, TaskStatus.IN_PROGRESS), record(1L, TaskStatus.DONE)), ack);
+
+        verify(notificationService).sendStatusDigestEmails(List.of(new TaskStatusChangedDto(1L, TaskStatus.DONE)));
+        verify(ack).acknowledge();
+        verifyNoInteractions(retryRouter);
+    }
+
+    @Test
+    @DisplayName("тест режима сводки по пачке: неотправленное событие уходит на уровень повторов, пачка подтверждается")
+    void acceptWithoutWindowRoutesFailedEventsAndAcks() {
+        ReflectionTestUtils.setField(digestService, "windowMs", 0L);
+        ConsumerRecord<String, TaskStatusChangedDto> failed = record(2L, TaskStatus.DONE);
+        when(notificationService.sendStatusDigestEmails(anyList())).thenReturn(List.of(
+                new NotificationResult(1L, true, null),
+                new NotificationResult(2L, false, "smtp down")));
+
+        digestService.accept(List.of(record(1L, TaskStatus.DONE), failed), ack);
+
+        verify(retryRouter).route(eq(failed), isA(NotificationSendException.class));
+        verifyNoMoreInteractions(retryRouter);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @DisplayName("тест режима сводки по пачке: не удалось передать на повтор — запись в исключении, пачка не подтверждается")
+    void acceptWithoutWindowReportsRoutingFailure() {
+        ReflectionTestUtils.setField(digestService, "windowMs", 0L);
+        ConsumerRecord<String, TaskStatusChangedDto> failed = record(1L, TaskStatus.DONE);
+        when(notificationService.sendStatusDigestEmails(anyList()))
+                .thenReturn(List.of(new NotificationResult(1L, false, "smtp down")));
+        doThrow(new KafkaException("брокер недоступен")).when(retryRouter).route(eq(failed), any());
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> digestService.accept(List.of(failed), ack));
+        assertSame(failed, e.getRecord());
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    @DisplayName("тест режима сводки по окну: события копятся и отправляются одной сводкой по истечении окна")
+    void windowCollectsBatchesAndFlushesWhenDue() {
+        ReflectionTestUtils.setField(digestService, "windowMs", 60_000L);
+        Acknowledgment secondAck = mock(Acknowledgment.class);
+
+        digestService.accept(List.of(record(1L, TaskStatus.IN_PROGRESS)), ack);
+        digestService.accept(List.of(record(2L, TaskStatus.NEW), record(1L, TaskStatus.DONE)), secondAck);
+
+        digestService.flushIfDue();
+        verifyNoInteractions(notificationService);
+
+        ReflectionTestUtils.setField(digestService, "windowStartedAt", 0L);
+        when(notificationService.sendStatusDigestEmails(anyList()))
+                .thenReturn(List.of(new NotificationResult(2L, true, null), new NotificationResult(1L, true, null)));
+        digestService.flushIfDue();
+
+        verify(notificationService).sendStatusDigestEmails(List.of(
+                new TaskStatusChangedDto(2L, TaskStatus.NEW),
+                new TaskStatusChangedDto(1L, TaskStatus.DONE)));
+        verify(ack).acknowledge();
+        verify(secondAck).acknowledge();
+    }
+
+    @Test
+    @DisplayName("тест режима сводки по окну: неотправленное событие уходит на уровень повторов, пачки подтверждаются")
+    void windowRoutesFailedEventsAndAcks() {
+        ReflectionTestUtils.setField(digestService, "windowMs", 60_000L);
+        ConsumerRecord<String, TaskStatusChangedDto> failed = record(1L, TaskStatus.DONE);
+        digestService.accept(List.of(failed), ack);
+        ReflectionTestUtils.setField(digestService, "windowStartedAt", 0L);
+        when(notificationService.sendStatusDigestEmails(anyList()))
+                .thenReturn(List.of(new NotificationResult(1L, false, "smtp down")));
+
+        digestService.flushIfDue();
+
+        verify(retryRouter).route(eq(failed), isA(NotificationSendException.class));
+        verify(ack).acknowledge();
+        assertFalse(digestService.deferIfRetrying(mock(Acknowledgment.class)), "Буфер пуст, новые пачки принимаются");
+    }
+
+    @Test
+    @DisplayName("тест режима сводки по окну: пока события не переданы на повтор, новые пачки возвращаются через nack")
+    void batchesAreDeferredWhileRoutingFails() {
+        ReflectionTestUtils.setField(digestService, "windowMs", 60_000L);
+        Acknowledgment nextAck = mock(Acknowledgment.class);
+        assertFalse(digestService.deferIfRetrying(nextAck));
+
+        ConsumerRecord<String, TaskStatusChangedDto> failed = record(1L, TaskStatus.DONE);
+        digestService.accept(List.of(failed), ack);
+        ReflectionTestUtils.setField(digestService, "windowStartedAt", 0L);
+        when(notificationService.sendStatusDigestEmails(anyList()))
+                .thenReturn(List.of(new NotificationResult(1L, false, "smtp down")));
+        doThrow(new KafkaException("брокер недоступен")).doNothing().when(retryRouter).route(eq(failed), any());
+        digestService.flushIfDue();
+
+        verify(ack, never()).acknowledge();
+        assertTrue(digestService.deferIfRetrying(nextAck));
+        verify(nextAck).nack(0, Duration.ofMillis(60_000L));
+        assertEquals(1, ((List<?>) ReflectionTestUtils.getField(digestService, "pendingAcks")).size());
+
+        ReflectionTestUtils.setField(digestService, "windowStartedAt", 0L);
+        digestService.flushIfDue();
+        verify(ack).acknowledge();
+        assertFalse(digestService.deferIfRetrying(mock(Acknowledgment.class)));
+    }
+
+    private ConsumerRecord<String, TaskStatusChangedDto> record(long taskId, TaskStatus status) {
+        return new ConsumerRecord<>("tasks_status_changed", 0, offset++, String.valueOf(taskId),
+                new TaskStatusChangedDto(taskId, status));
+    }
+}
@@ -0,0 +1,165 @@
+package com.bsdev.crud_webapp.service;
+
+import com.bsdev.crud_webapp.dto.NotificationResult;
+import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.MessagingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("тест пакетной отправки уведомлений через локальный SMTP-сервер")
+    void sendStatusChangedEmailsDeliversAll() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        NotificationService service = createService(mailSender, 5, 2);
+
+        List<TaskStatusChangedDto> dtos = IntStream.range(0, 12)
+                .mapToObj(i -> new TaskStatusChangedDto(i, TaskStatus.DONE))
+                .toList();
+
+        List<NotificationResult> results = service.sendStatusChangedEmails(dtos);
+
+        assertEquals(12, results.size());
+        assertTrue(results.stream().allMatch(NotificationResult::sent), "Все письма должны быть отправлены");
+        assertEquals(5L, results.get(5).taskId(), "Результаты идут в порядке входного списка");
+        assertTrue(greenMail.waitForIncomingEmail(12));
+    }
+
+    @Test
+    @DisplayName("тест пакетной отправки: ошибка одного письма не влияет на результат остальных")
+    void sendStatusChangedEmailsReportsFailurePerMessage() {
+        AtomicInteger sendCalls = new AtomicInteger();
+        JavaMailSender mailSender = new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... messages) {
+                sendCalls.incrementAndGet();
+                throw new MailSendException(Map.of(messages[1], new MessagingException("550 rejected")));
+            }
+        };
+        NotificationService service = createService(mailSender, 10, 1);
+
+        List<NotificationResult> results = service.sendStatusChangedEmails(List.of(
+                new TaskStatusChangedDto(1L, TaskStatus.NEW),
+                new TaskStatusChangedDto(2L, TaskStatus.IN_PROGRESS),
+                new TaskStatusChangedDto(3L, TaskStatus.DONE)));
+
+        assertTrue(results.get(0).sent());
+        assertFalse(results.get(1).sent());
+        assertEquals("550 rejected", results.get(1).error());
+        assertTrue(results.get(2).sent());
+        assertEquals(1, sendCalls.get(), "Пачка отправляется одним вызовом JavaMailSender");
+        assertEquals(1, meterRegistry.get("notification.smtp.send").tag("result", "failure").timer().count());
+        assertEquals(2.0, meterRegistry.get("notification.messages").tag("result", "sent").counter().count());
+        assertEquals(1.0, meterRegistry.get("notification.messages").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("тест пакетной отправки: письма одной задачи отправляются в исходном порядке")
+    void sendStatusChangedEmailsKeepsOrderPerTask() {
+        List<String> sentTexts = Collections.synchronizedList(new ArrayList<>());
+        JavaMailSender mailSender = new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... messages) {
+                for (SimpleMailMessage message : messages) {
+                    sentTexts.add(message.getText());
+                }
+            }
+        };
+        NotificationService service = createService(mailSender, 2, 2);
+
+        List<TaskStatusChangedDto> dtos = new ArrayList<>();
+        for (TaskStatus status : TaskStatus.values()) {
+            for (long taskId = 1; taskId <= 4; taskId++) {
+                dtos.add(new TaskStatusChangedDto(taskId, status));
+            }
+        }
+        service.sendStatusChangedEmails(dtos);
+
+        for (long taskId = 1; taskId <= 4; taskId++) {
+            String prefix = "Задача с ID " + taskId + " ";
+            List<String> taskTexts = sentTexts.stream().filter(text -> text.startsWith(prefix)).toList();
+            assertEquals(List.of(
+                    prefix + "теперь имеет новый статус: NEW",
+                    prefix + "теперь имеет новый статус: IN_PROGRESS",
+                    prefix + "теперь имеет новый статус: DONE"), taskTexts);
+        }
+    }
+
+    @Test
+    @DisplayName("тест пакетной отправки с настройками по умолчанию: пачка Kafka из 10 писем уходит в 4 дорожки параллельно")
+    void sendStatusChangedEmailsUsesConcurrencyWithDefaults() {
+        AtomicInteger sendCalls = new AtomicInteger();
+        CountDownLatch parallel = new CountDownLatch(2);
+        List<Boolean> overlapped = Collections.synchronizedList(new ArrayList<>());
+        JavaMailSender mailSender = new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... messages) {
+                sendCalls.incrementAndGet();
+                parallel.countDown();
+                try {
+                    overlapped.add(parallel.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        // notification.batch-size: 50, notification.concurrency: 4, spring.kafka.consumer.max-poll-records: 10
+        NotificationService service = createService(mailSender, 50, 4);
+
+        List<NotificationResult> results = service.sendStatusChangedEmails(IntStream.range(0, 10)
+                .mapToObj(i -> new TaskStatusChangedDto(i, TaskStatus.DONE))
+                .toList());
+
+        assertTrue(results.stream().allMatch(NotificationResult::sent));
+        assertEquals(4, sendCalls.get(), "Одно обращение к SMTP на дорожку");
+        assertEquals(List.of(true, true, true, true), overlapped, "Дорожки отправляются одновременно");
+    }
+
+    private NotificationService createService(JavaMailSender mailSender, int batchSize, int concurrency) {
+        NotificationService service = new NotificationService(mailSender, executor, meterRegistry);
+        ReflectionTestUtils.setField(service, "from", "from@test.local");
+        ReflectionTestUtils.setField(service, "defaultRecipient", "to@test.local");
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "concurrency", concurrency);
+        return service;
+    }
+}
@@ -108,7 +108,7 @@ public class TaskServiceIntegrationTest extends AbstractContainerBaseTest {
                 300L,
                 TaskStatus.DONE
         );
-        taskService.updateTask(created.id(), updateRequest);
+        taskService.updateTask(created.id(), updateRequest, null);
 
         ConsumerRecord<String, TaskStatusChangedDto> record =
                 KafkaTestUtils.getSingleRecord(kafkaConsumer, "tasks_status_changed");
@@ -135,7 +135,7 @@ public class TaskServiceIntegrationTest extends AbstractContainerBaseTest {
         var created = taskService.createTask(request);
 
         assertEquals(1, taskRepository.count(), "Перед удалением в репозитории одна задача");
-        taskService.deleteTask(created.id());
+        taskService.deleteTask(created.id(), null);
         assertEquals(0, taskRepository.count(), "После удаления репозиторий пуст");
     }
 
@@ -1,25 +1,51 @@
 package com.bsdev.crud_webapp.service;
 
+import com.bsdev.crud_webapp.cache.TaskCache;
+import com.bsdev.crud_webapp.cache.TaskCacheInvalidationPublisher;
+import com.bsdev.crud_webapp.datasource.PrimaryPin;
+import com.bsdev.crud_webapp.dto.TaskPageResponse;
+import com.bsdev.crud_webapp.dto.TaskPatchRequest;
 import com.bsdev.crud_webapp.dto.TaskRequest;
 import com.bsdev.crud_webapp.dto.TaskResponse;
-import com.bsdev.crud_webapp.dto.TaskStatusChangedDto;
 import com.bsdev.crud_webapp.entity.Task;
 import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.entity.TaskStatusOutboxEvent;
+import com.bsdev.crud_webapp.exception.TaskConcurrentModificationException;
 import com.bsdev.crud_webapp.exception.TaskNotFoundException;
+import com.bsdev.crud_webapp.exception.TaskVersionMismatchException;
 import com.bsdev.crud_webapp.repository.TaskRepository;
+import com.bsdev.crud_webapp.repository.TaskRepositoryCustom.DeletedTask;
+import com.bsdev.crud_webapp.repository.TaskRepositoryCustom.StatusTransition;
+import com.bsdev.crud_webapp.repository.TaskRepositoryCustom.TaskPatchResult;
+import com.bsdev.crud_webapp.repository.TaskStatusOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,7 +58,21 @@ public class TaskServiceUnitTest {
     private TaskService taskService;
 
     @Mock
-    private KafkaTemplate<String, TaskStatusChangedDto> kafkaTemplate;
+    private TaskStatusOutboxRepository outboxRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private TaskCache taskCache = new TaskCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), meterRegistry);
+
+    @Mock
+    private TaskCacheInvalidationPublisher cacheInvalidationPublisher;
+
+    @Mock
+    private TaskStatsService taskStatsService;
 
 
     @Test
@@ -54,6 +94,45 @@ public class TaskServiceUnitTest {
         assertEquals(exampleTask.getId(), response.id());
         assertEquals(exampleTask.getTitle(), response.title());
         verify(taskRepositoryMock, times(1)).save(any());
+        verify(taskStatsService).taskCreated(100L, TaskStatus.NEW);
+    }
+
+    @Test
+    @DisplayName("тест пакетного создания задач: сохранение частями со сбросом контекста после каждой части")
+    void createTasksSavesInChunks() {
+        List<TaskRequest> requests = IntStream.range(0, TaskService.INSERT_CHUNK_SIZE + 1)
+                .mapToObj(i -> new TaskRequest("Задача " + i, "Описание", 1L, TaskStatus.NEW))
+                .toList();
+
+        List<Long> ids = taskService.createTasks(requests);
+
+        assertEquals(requests.size(), ids.size(), "Для каждой задачи возвращается id");
+        verify(taskRepositoryMock, times(2)).saveAll(anyList());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        verify(taskStatsService, times(requests.size())).taskCreated(1L, TaskStatus.NEW);
+    }
+
+    @Test
+    @DisplayName("тест пакетного создания задач: другие узлы получают вытеснение по каждой созданной задаче")
+    void createTasksPublishesInvalidation() {
+        List<TaskRequest> requests = List.of(
+                new TaskRequest("Задача 1", "Описание", 1L, TaskStatus.NEW),
+                new TaskRequest("Задача 2", "Описание", 1L, TaskStatus.NEW));
+        when(taskRepositoryMock.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Task> tasks = invocation.getArgument(0);
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).setId(20L + i);
+            }
+            return tasks;
+        });
+
+        List<Long> ids = taskService.createTasks(requests);
+
+        assertEquals(List.of(20L, 21L), ids);
+        verify(taskCache).evictAllAfterCommit(ids);
+        verify(cacheInvalidationPublisher).publishAfterCommit(20L);
+        verify(cacheInvalidationPublisher).publishAfterCommit(21L);
     }
 
     @Test
@@ -78,32 +157,275 @@ public class TaskServiceUnitTest {
     }
 
     @Test
-    @DisplayName("тест успешного обновления задачи с новым статусом и публикации в Kafka")
+    @DisplayName("тест кэша: повторный поиск задачи по id не обращается к репозиторию")
+    void findTaskByIdOrThrowUsesCache() {
+        Task exampleTask = createExampleTask(11L, TaskStatus.NEW);
+        when(taskRepositoryMock.findById(11L)).thenReturn(Optional.of(exampleTask));
+
+        taskService.findTaskByIdOrThrow(11L);
+        taskService.findTaskByIdOrThrow(11L);
+
+        verify(taskRepositoryMock, times(1)).findById(11L);
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "tasks", "result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("тест кэша: отсутствие задачи тоже кэшируется")
+    void findTaskByIdOrThrowCachesMissingTask() {
+        when(taskRepositoryMock.findById(98L)).thenReturn(Optional.empty());
+
+        assertThrows(TaskNotFoundException.class, () -> taskService.findTaskByIdOrThrow(98L));
+        assertThrows(TaskNotFoundException.class, () -> taskService.findTaskByIdOrThrow(98L));
+
+        verify(taskRepositoryMock, times(1)).findById(98L);
+    }
+
+    @Test
+    @DisplayName("тест кэша: обновление задачи вытесняет её из кэша")
+    void updateTaskEvictsCachedTask() {
+        Task exampleTask = createExampleTask(12L, TaskStatus.NEW);
+        when(taskRepositoryMock.findById(12L)).thenReturn(Optional.of(exampleTask));
+        taskService.findTaskByIdOrThrow(12L);
+
+        taskService.updateTask(12L, new TaskRequest("NewTitle", "NewDesc", 5L, TaskStatus.NEW), null);
+        TaskResponse response = taskService.findTaskByIdOrThrow(12L);
+
+        assertEquals("NewTitle", response.title(), "После обновления задача перечитывается из репозитория");
+        verify(taskRepositoryMock, times(3)).findById(12L);
+        verify(cacheInvalidationPublisher).publishAfterCommit(12L);
+    }
+
+    @Test
+    @DisplayName("тест кэша: недавно вытесненная задача загружается с основной базы, остальные — с реплики")
+    void recentlyInvalidatedTaskIsLoadedFromPrimary() {
+        List<Boolean> pinned = new ArrayList<>();
+        when(taskRepositoryMock.findById(anyLong())).thenAnswer(invocation -> {
+            pinned.add(PrimaryPin.isPinned());
+            return Optional.of(createExampleTask(invocation.getArgument(0), TaskStatus.NEW));
+        });
+        doReturn(true).when(taskCache).isRecentlyInvalidated(15L);
+
+        taskService.findTaskByIdOrThrow(15L);
+        taskService.findTaskByIdOrThrow(16L);
+
+        assertEquals(List.of(true, false), pinned);
+        assertFalse(PrimaryPin.isPinned());
+    }
+
+    @Test
+    @DisplayName("тест кэша: вытеснение не ждёт загрузку того же id и отбрасывает её результат")
+    void updateTaskDoesNotWaitForConcurrentCacheLoad() throws Exception {
+        Task exampleTask = createExampleTask(13L, TaskStatus.NEW);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskRepositoryMock.findById(13L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return Optional.of(createExampleTask(13L, TaskStatus.NEW));
+        }).thenReturn(Optional.of(exampleTask));
+
+        CompletableFuture<TaskResponse> reader = CompletableFuture.supplyAsync(() -> taskService.findTaskByIdOrThrow(13L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> taskService.updateTask(13L, new TaskRequest("NewTitle", "NewDesc", 5L, TaskStatus.NEW), null));
+        release.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+
+        assertEquals("NewTitle", taskService.findTaskByIdOrThrow(13L).title(),
+                "Загрузка, начатая до вытеснения, не должна вернуться в кэш");
+    }
+
+    @Test
+    @DisplayName("тест успешного обновления задачи с новым статусом и записи события в outbox")
     void updateTaskStatusChangedPublishEvent() {
         Task exampleTask = createExampleTask(3L, TaskStatus.IN_PROGRESS);
         when(taskRepositoryMock.findById(exampleTask.getId())).thenReturn(Optional.of(exampleTask));
 
         TaskRequest request = new TaskRequest("NewTitle", "NewDesc", 5L, TaskStatus.DONE);
-        taskService.updateTask(3L, request);
+        taskService.updateTask(3L, request, null);
 
-        verify(taskRepositoryMock).save(argThat(t ->
+        verify(taskRepositoryMock).saveAndFlush(argThat(t ->
                 t.getStatus() == TaskStatus.DONE &&
                         t.getTitle().equals("NewTitle"))
         );
 
-        verify(kafkaTemplate).sendDefault(
-                new TaskStatusChangedDto(3L, TaskStatus.DONE)
+        verify(outboxRepository).save(argThat(e ->
+                e.getTaskId() == 3L &&
+                        e.getStatus() == TaskStatus.DONE)
         );
+        verify(taskStatsService).taskMoved(100L, TaskStatus.IN_PROGRESS, 5L, TaskStatus.DONE);
+    }
+
+    @Test
+    @DisplayName("тест обновления задачи без смены статуса: событие в outbox не пишется")
+    void updateTaskSameStatusNoOutboxEvent() {
+        Task exampleTask = createExampleTask(4L, TaskStatus.NEW);
+        when(taskRepositoryMock.findById(exampleTask.getId())).thenReturn(Optional.of(exampleTask));
+
+        taskService.updateTask(4L, new TaskRequest("NewTitle", "NewDesc", 5L, TaskStatus.NEW), null);
+
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("тест обновления с If-Match: версия не совпала — задача не меняется")
+    void updateTaskVersionMismatch() {
+        Task exampleTask = createExampleTask(5L, TaskStatus.NEW);
+        exampleTask.setVersion(3L);
+        when(taskRepositoryMock.findById(5L)).thenReturn(Optional.of(exampleTask));
+
+        assertThrows(TaskVersionMismatchException.class,
+                () -> taskService.updateTask(5L, new TaskRequest("NewTitle", "NewDesc", 5L, TaskStatus.DONE), 2L));
+
+        assertEquals("Example Title", exampleTask.getTitle());
+        verify(taskRepositoryMock, never()).saveAndFlush(any());
+        verify(outboxRepository, never()).save(any());
+        verifyNoInteractions(taskStatsService);
+    }
+
+    @Test
+    @DisplayName("тест обновления: параллельное изменение строки без If-Match даёт конфликт")
+    void updateTaskConcurrentModification() {
+        Task exampleTask = createExampleTask(6L, TaskStatus.NEW);
+        when(taskRepositoryMock.findById(6L)).thenReturn(Optional.of(exampleTask));
+        when(taskRepositoryMock.saveAndFlush(exampleTask))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Task.class, 6L));
+
+        assertThrows(TaskConcurrentModificationException.class,
+                () -> taskService.updateTask(6L, new TaskRequest("NewTitle", "NewDesc", 5L, TaskStatus.NEW), null));
+    }
+
+    @Test
+    @DisplayName("тест частичного обновления: статус изменился — событие пишется в outbox, задача вытесняется из кэша")
+    void patchTaskStatusChangedWritesOutbox() {
+        TaskPatchRequest patch = new TaskPatchRequest(null, null, null, TaskStatus.DONE);
+        when(taskRepositoryMock.patch(7L, patch, null))
+                .thenReturn(Optional.of(new TaskPatchResult(100L, TaskStatus.NEW, 100L, TaskStatus.DONE, 4L)));
+
+        assertEquals(4L, taskService.patchTask(7L, patch, null));
+
+        verify(taskRepositoryMock, never()).findById(any());
+        verify(outboxRepository).save(argThat(e -> e.getTaskId() == 7L && e.getStatus() == TaskStatus.DONE));
+        verify(taskCache).evictAfterCommit(7L);
+        verify(taskStatsService).taskMoved(100L, TaskStatus.NEW, 100L, TaskStatus.DONE);
+    }
+
+    @Test
+    @DisplayName("тест частичного обновления: статус не изменился — событие в outbox не пишется")
+    void patchTaskSameStatusNoOutboxEvent() {
+        TaskPatchRequest patch = new TaskPatchRequest("NewTitle", null, null, TaskStatus.NEW);
+        when(taskRepositoryMock.patch(8L, patch, null))
+                .thenReturn(Optional.of(new TaskPatchResult(100L, TaskStatus.NEW, 100L, TaskStatus.NEW, 2L)));
+
+        taskService.patchTask(8L, patch, null);
+
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("тест частичного обновления: строка не обновлена — 404 без задачи и 412 при несовпавшей версии")
+    void patchTaskNotFoundOrVersionMismatch() {
+        TaskPatchRequest patch = new TaskPatchRequest(null, null, 1L, null);
+        when(taskRepositoryMock.patch(eq(9L), eq(patch), any())).thenReturn(Optional.empty());
+        when(taskRepositoryMock.existsById(9L)).thenReturn(true);
+
+        assertThrows(TaskVersionMismatchException.class, () -> taskService.patchTask(9L, patch, 1L));
+
+        when(taskRepositoryMock.existsById(9L)).thenReturn(false);
+        assertThrows(TaskNotFoundException.class, () -> taskService.patchTask(9L, patch, 1L));
+        assertThrows(TaskNotFoundException.class, () -> taskService.patchTask(9L, patch, null));
     }
 
     @Test
     @DisplayName("тест удаления задачи с несуществующим id")
     void deleteTaskOrThrowNotFoundException(){
-        when(taskRepositoryMock.findById(44L)).thenReturn(Optional.empty());
+        when(taskRepositoryMock.deleteByIdReturning(44L, null)).thenReturn(Optional.empty());
 
         assertThrows(TaskNotFoundException.class,
-                () -> taskService.deleteTask(44L),
+                () -> taskService.deleteTask(44L, null),
                 "При попытке удаления задачи с несуществующим id выбрасывается TaskNotFoundException");
+        verify(taskRepositoryMock, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("тест удаления задачи одним DELETE: без чтения задачи, с вытеснением из кэша")
+    void deleteTaskSingleStatement() {
+        when(taskRepositoryMock.deleteByIdReturning(45L, null))
+                .thenReturn(Optional.of(new DeletedTask(45L, 100L, TaskStatus.DONE)));
+
+        taskService.deleteTask(45L, null);
+
+        verify(taskRepositoryMock, never()).findById(any());
+        verify(taskCache).evictAfterCommit(45L);
+        verify(cacheInvalidationPublisher).publishAfterCommit(45L);
+        verify(taskStatsService).taskDeleted(100L, TaskStatus.DONE);
+    }
+
+    @Test
+    @DisplayName("тест удаления с If-Match: версия не совпала, задача существует — 412")
+    void deleteTaskVersionMismatch() {
+        when(taskRepositoryMock.deleteByIdReturning(46L, 2L)).thenReturn(Optional.empty());
+        when(taskRepositoryMock.existsById(46L)).thenReturn(true);
+
+        assertThrows(TaskVersionMismatchException.class, () -> taskService.deleteTask(46L, 2L));
+        verify(cacheInvalidationPublisher, never()).publishAfterCommit(anyLong());
+        verifyNoInteractions(taskStatsService);
+    }
+
+    @Test
+    @DisplayName("тест массового удаления: инвалидация только для действительно удалённых задач")
+    void deleteTasksInvalidatesOnlyDeleted() {
+        when(taskRepositoryMock.deleteAllByIdReturning(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new DeletedTask(1L, 100L, TaskStatus.NEW),
+                new DeletedTask(3L, 100L, TaskStatus.DONE)));
+
+        assertEquals(List.of(1L, 3L), taskService.deleteTasks(List.of(1L, 2L, 3L)));
+
+        verify(taskCache).evictAllAfterCommit(List.of(1L, 3L));
+        verify(cacheInvalidationPublisher).publishAfterCommit(1L);
+        verify(cacheInvalidationPublisher).publishAfterCommit(3L);
+        verify(cacheInvalidationPublisher, never()).publishAfterCommit(2L);
+        verify(taskStatsService).taskDeleted(100L, TaskStatus.NEW);
+        verify(taskStatsService).taskDeleted(100L, TaskStatus.DONE);
+    }
+
+    @Test
+    @DisplayName("тест массовой смены статуса: события в outbox одной пачкой и только по изменённым задачам")
+    void transitionStatusWritesEventsOnlyForChanged() {
+        when(taskRepositoryMock.updateStatusReturning(List.of(1L, 2L, 3L), TaskStatus.DONE)).thenReturn(List.of(
+                new StatusTransition(1L, 100L, TaskStatus.NEW, 1L),
+                new StatusTransition(3L, 200L, TaskStatus.IN_PROGRESS, 4L)));
+
+        assertEquals(List.of(1L, 3L), taskService.transitionStatus(List.of(1L, 2L, 3L), TaskStatus.DONE));
+
+        verify(outboxRepository).saveAll(argThat(events -> {
+            List<TaskStatusOutboxEvent> list = (List<TaskStatusOutboxEvent>) events;
+            return list.size() == 2
+                    && list.get(0).getTaskId() == 1L && list.get(1).getTaskId() == 3L
+                    && list.stream().allMatch(e -> e.getStatus() == TaskStatus.DONE);
+        }));
+        verify(outboxRepository, never()).save(any());
+        verify(taskRepositoryMock, never()).findById(any());
+        verify(taskCache).evictAllAfterCommit(List.of(1L, 3L));
+        verify(cacheInvalidationPublisher, never()).publishAfterCommit(2L);
+        verify(taskStatsService).taskMoved(100L, TaskStatus.NEW, 100L, TaskStatus.DONE);
+        verify(taskStatsService).taskMoved(200L, TaskStatus.IN_PROGRESS, 200L, TaskStatus.DONE);
+    }
+
+    @Test
+    @DisplayName("тест поиска: пустой запрос не идёт в базу, limit ограничен сверху")
+    void searchTasksClampsLimitAndSkipsBlankQuery() {
+        when(taskRepositoryMock.search("отчёт", TaskService.MAX_SEARCH_LIMIT))
+                .thenReturn(List.of(createExampleTask(20L, TaskStatus.NEW)));
+
+        assertEquals(List.of(), taskService.searchTasks("  ", 10));
+        List<TaskResponse> found = taskService.searchTasks("отчёт", 10_000);
+
+        assertEquals(1, found.size());
+        assertEquals(20L, found.get(0).id());
+        verify(taskRepositoryMock, times(1)).search(anyString(), anyInt());
     }
 
     @Test
@@ -117,6 +439,45 @@ public class TaskServiceUnitTest {
         assertEquals("Example Title", all.get(0).title());
     }
 
+    @Test
+    @DisplayName("тест keyset-пагинации: при наличии следующей страницы возвращается курсор next")
+    void findTasksPageReturnsNextCursor() {
+        when(taskRepositoryMock.findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(
+                        createExampleTask(11L, TaskStatus.NEW),
+                        createExampleTask(12L, TaskStatus.NEW),
+                        createExampleTask(13L, TaskStatus.DONE)));
+
+        TaskPageResponse page = taskService.findTasksPage(10L, 2, null, null);
+        assertEquals(2, page.items().size(), "Лишняя строка не должна попадать в ответ");
+        assertEquals(12L, page.next(), "Курсор next указывает на последний id страницы");
+    }
+
+    @Test
+    @DisplayName("тест keyset-пагинации: на последней странице курсор next равен null")
+    void findTasksPageLastPageHasNoCursor() {
+        when(taskRepositoryMock.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 6)))
+                .thenReturn(List.of(createExampleTask(1L, TaskStatus.NEW)));
+
+        TaskPageResponse page = taskService.findTasksPage(0L, 5, null, null);
+        assertEquals(1, page.items().size());
+        assertNull(page.next());
+    }
+
+    @Test
+    @DisplayName("тест фильтрации страницы: userId и status выбирают запрос с обоими условиями")
+    void findTasksPageFilteredByUserAndStatus() {
+        when(taskRepositoryMock.findByUserIdAndStatusAndIdGreaterThanOrderByIdAsc(
+                100L, TaskStatus.DONE, 0L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(createExampleTask(4L, TaskStatus.DONE)));
+
+        TaskPageResponse page = taskService.findTasksPage(0L, 2, 100L, TaskStatus.DONE);
+
+        assertEquals(1, page.items().size());
+        assertNull(page.next());
+        verify(taskRepositoryMock, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
     private static Task createExampleTask(long id, TaskStatus status) {
         return Task.builder()
                 .id(id)
@@ -0,0 +1,98 @@
+package com.bsdev.crud_webapp.service;
+
+import com.bsdev.crud_webapp.dto.TaskStatsResponse;
+import com.bsdev.crud_webapp.entity.TaskStatus;
+import com.bsdev.crud_webapp.repository.TaskStatusCountRepository;
+import com.bsdev.crud_webapp.repository.TaskStatusCountRepository.TaskStatusCount;
+import com.bsdev.crud_webapp.repository.TaskStatusCountRepository.UserStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskStatsServiceTest {
+
+    @Mock
+    private TaskStatusCountRepository countRepository;
+
+    @InjectMocks
+    private TaskStatsService taskStatsService;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("тест счётчиков в транзакции: изменения суммируются и записываются одной пачкой перед коммитом")
+    void deltasAreMergedAndAppliedBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        taskStatsService.taskCreated(1L, TaskStatus.NEW);
+        taskStatsService.taskCreated(1L, TaskStatus.NEW);
+        taskStatsService.taskMoved(1L, TaskStatus.NEW, 2L, TaskStatus.DONE);
+        taskStatsService.taskMoved(2L, TaskStatus.DONE, 2L, TaskStatus.DONE);
+        taskStatsService.taskDeleted(3L, TaskStatus.IN_PROGRESS);
+
+        verify(countRepository, never()).applyDeltas(anyMap());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size(), "На транзакцию регистрируется одна синхронизация");
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+
+        verify(countRepository).applyDeltas(Map.of(
+                new UserStatus(1L, TaskStatus.NEW), 1L,
+                new UserStatus(2L, TaskStatus.DONE), 1L,
+                new UserStatus(3L, TaskStatus.IN_PROGRESS), -1L));
+    }
+
+    @Test
+    @DisplayName("тест счётчиков вне транзакции: изменение записывается сразу")
+    void deltaIsAppliedImmediatelyWithoutTransaction() {
+        taskStatsService.taskDeleted(1L, TaskStatus.DONE);
+
+        verify(countRepository).applyDeltas(Map.of(new UserStatus(1L, TaskStatus.DONE), -1L));
+    }
+
+    @Test
+    @DisplayName("тест статистики без userId: только общие счётчики, счётчики пользователей не читаются")
+    void getStatsWithoutUserReadsTotalsOnly() {
+        when(countRepository.findTotals()).thenReturn(Map.of(TaskStatus.NEW, 7L, TaskStatus.DONE, 1L));
+
+        TaskStatsResponse stats = taskStatsService.getStats(null);
+
+        assertEquals(Map.of(TaskStatus.NEW, 7L, TaskStatus.IN_PROGRESS, 0L, TaskStatus.DONE, 1L), stats.total());
+        assertEquals(Map.of(), stats.byUser());
+        verify(countRepository, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    @DisplayName("тест статистики с userId: общие счётчики и счётчики пользователя, отсутствующие статусы равны нулю")
+    void getStatsWithUserAddsUserCounts() {
+        when(countRepository.findTotals()).thenReturn(Map.of(TaskStatus.NEW, 7L, TaskStatus.DONE, 1L));
+        when(countRepository.findByUserId(1L)).thenReturn(List.of(
+                new TaskStatusCount(1L, TaskStatus.NEW, 2L),
+                new TaskStatusCount(1L, TaskStatus.DONE, 1L)));
+
+        TaskStatsResponse stats = taskStatsService.getStats(1L);
+
+        assertEquals(Map.of(TaskStatus.NEW, 7L, TaskStatus.IN_PROGRESS, 0L, TaskStatus.DONE, 1L), stats.total());
+        assertEquals(Map.of(1L, Map.of(TaskStatus.NEW, 2L, TaskStatus.IN_PROGRESS, 0L, TaskStatus.DONE, 1L)),
+                stats.byUser());
+    }
+}